@@ -0,0 +1,150 @@
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ConcurrentPercolation {
+    // initialize instance variables
+    private final int n;
+    private final int top;
+    private final int bottom;
+    private final AtomicLongArray open;
+    private final LongAdder openSites;
+
+    // full links only the virtual top, so isFull sees no backwash;
+    // spanning links both virtual sites and answers percolates
+    private final ConcurrentUF full;
+    private final ConcurrentUF spanning;
+    private volatile boolean percolates;
+
+    // creates n-by-n grid, with all sites initially blocked
+    public ConcurrentPercolation(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be greater than 0");
+        }
+
+        this.n = n;
+        this.top = n * n;
+        this.bottom = n * n + 1;
+        this.open = new AtomicLongArray((n * n + 63) >>> 6);
+        this.openSites = new LongAdder();
+
+        int seed = ThreadLocalRandom.current().nextInt();
+        this.full = new ConcurrentUF(n * n + 1, seed);
+        this.spanning = new ConcurrentUF(n * n + 2, seed);
+    }
+
+    // help make sure if the given index (r, c) is valid
+    private boolean isIndexValid(int r, int c) {
+        return r > 0 && r <= n && c > 0 && c <= n;
+    }
+
+    // help convert (r, c) to index used in grid
+    private int convertIndex(int r, int c) {
+        return (r - 1) * n + c - 1;
+    }
+
+    // help read the open bit of the site at index
+    private boolean isOpenAt(int index) {
+        return (open.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    // opens the site (row, col) if it is not open already; safe to call from many threads
+    public void open(int row, int col) {
+        if (!isIndexValid(row, col)) {
+            throw new IllegalArgumentException("index outside the prescribed range");
+        }
+
+        // set the open bit first: of two neighbours opened at once, at least one
+        // sees the other's bit below and links them
+        int index = convertIndex(row, col);
+        long bit = 1L << index;
+        if ((open.getAndAccumulate(index >>> 6, bit, (word, mask) -> word | mask) & bit) != 0) {
+            return;
+        }
+        openSites.increment();
+
+        // connect the first row with virtual top
+        if (row == 1) {
+            connect(index, top);
+        }
+
+        // connect the last row with virtual bottom
+        if (row == n) {
+            spanning.union(index, bottom);
+        }
+
+        // connect the new open site to its adjacent open sites
+        if (row > 1 && isOpenAt(index - n)) {
+            connect(index - n, index);
+        }
+        if (row < n && isOpenAt(index + n)) {
+            connect(index + n, index);
+        }
+        if (col > 1 && isOpenAt(index - 1)) {
+            connect(index - 1, index);
+        }
+        if (col < n && isOpenAt(index + 1)) {
+            connect(index + 1, index);
+        }
+    }
+
+    // union p and q in both structures
+    private void connect(int p, int q) {
+        full.union(p, q);
+        spanning.union(p, q);
+    }
+
+    // is the site (row, col) open?
+    public boolean isOpen(int row, int col) {
+        if (!isIndexValid(row, col)) {
+            throw new IllegalArgumentException("Index outside the prescribed range");
+        }
+        return isOpenAt(convertIndex(row, col));
+    }
+
+    // is the site (row, col) full?
+    public boolean isFull(int row, int col) {
+        if (!isIndexValid(row, col)) {
+            throw new IllegalArgumentException("Index outside the prescribed range");
+        }
+        return full.connected(convertIndex(row, col), top);
+    }
+
+    // returns the number of open sites
+    public int numberOfOpenSites() {
+        return (int) openSites.sum();
+    }
+
+    // does the system percolate? once true it stays true, so the answer is cached
+    public boolean percolates() {
+        if (!percolates && spanning.connected(top, bottom)) {
+            percolates = true;
+        }
+        return percolates;
+    }
+
+    // test client: open all sites of an n-by-n grid from several threads
+    public static void main(String[] args) throws InterruptedException {
+        int n = Integer.parseInt(args[0]);
+        int threads = Integer.parseInt(args[1]);
+        ConcurrentPercolation p = new ConcurrentPercolation(n);
+
+        Thread[] workers = new Thread[threads];
+        for (int w = 0; w < threads; w++) {
+            int first = w;
+            workers[w] = new Thread(() -> {
+                for (int i = first; i < n * n; i += threads) {
+                    p.open(i / n + 1, i % n + 1);
+                }
+            });
+            workers[w].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        System.out.println("open sites = " + p.numberOfOpenSites());
+        System.out.println("percolates = " + p.percolates());
+        System.out.println("corner full = " + p.isFull(n, n));
+    }
+}
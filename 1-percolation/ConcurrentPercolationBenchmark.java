@@ -0,0 +1,109 @@
+import java.util.SplittableRandom;
+
+public class ConcurrentPercolationBenchmark {
+    // the operations both contenders support
+    private interface Grid {
+        void open(int row, int col);
+
+        boolean isFull(int row, int col);
+
+        boolean percolates();
+    }
+
+    // the current Percolation behind a single lock, as callers share it today
+    private static class SynchronizedPercolation implements Grid {
+        private final Percolation p;
+
+        SynchronizedPercolation(int n) {
+            p = new Percolation(n);
+        }
+
+        public synchronized void open(int row, int col) {
+            p.open(row, col);
+        }
+
+        public synchronized boolean isFull(int row, int col) {
+            return p.isFull(row, col);
+        }
+
+        public synchronized boolean percolates() {
+            return p.percolates();
+        }
+    }
+
+    // the lock-free variant
+    private static class Concurrent implements Grid {
+        private final ConcurrentPercolation p;
+
+        Concurrent(int n) {
+            p = new ConcurrentPercolation(n);
+        }
+
+        public void open(int row, int col) {
+            p.open(row, col);
+        }
+
+        public boolean isFull(int row, int col) {
+            return p.isFull(row, col);
+        }
+
+        public boolean percolates() {
+            return p.percolates();
+        }
+    }
+
+    // open every site of the grid in the given order, split round-robin over threads,
+    // with each open followed by an isFull and a percolates query; returns elapsed nanoseconds
+    private static long run(Grid grid, int n, int[] order, int threads) throws InterruptedException {
+        Thread[] workers = new Thread[threads];
+        for (int w = 0; w < threads; w++) {
+            int first = w;
+            workers[w] = new Thread(() -> {
+                for (int i = first; i < order.length; i += threads) {
+                    int site = order[i];
+                    grid.open(site / n + 1, site % n + 1);
+                    grid.isFull(site / n + 1, site % n + 1);
+                    grid.percolates();
+                }
+            });
+        }
+
+        long start = System.nanoTime();
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return System.nanoTime() - start;
+    }
+
+    // usage: n maxThreads [rounds]
+    public static void main(String[] args) throws InterruptedException {
+        int n = Integer.parseInt(args[0]);
+        int maxThreads = Integer.parseInt(args[1]);
+        int rounds = args.length >= 3 ? Integer.parseInt(args[2]) : 5;
+
+        // one fixed random site order shared by every run
+        SplittableRandom random = new SplittableRandom(42);
+        int[] order = new int[n * n];
+        for (int i = 0; i < order.length; i++) {
+            int j = random.nextInt(i + 1);
+            order[i] = order[j];
+            order[j] = i;
+        }
+
+        System.out.println("threads  synchronized(ms)  concurrent(ms)  speedup");
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            // keep the best of several rounds, after the first round warms up the JIT
+            long locked = Long.MAX_VALUE;
+            long lockFree = Long.MAX_VALUE;
+            for (int r = 0; r < rounds; r++) {
+                locked = Math.min(locked, run(new SynchronizedPercolation(n), n, order, threads));
+                lockFree = Math.min(lockFree, run(new Concurrent(n), n, order, threads));
+            }
+            System.out.printf("%7d  %16.1f  %14.1f  %7.2f%n",
+                    threads, locked / 1e6, lockFree / 1e6, (double) locked / lockFree);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class ConcurrentUF implements UnionFind {
+    // initialize instance variables
+    private final AtomicIntegerArray parent;
+    private final int seed;
+
+    // initialize n elements 0 through n-1, each in its own set,
+    // with linking priorities drawn from the given seed
+    public ConcurrentUF(int n, int seed) {
+        if (n < 0) {
+            throw new IllegalArgumentException("n must not be negative");
+        }
+        this.parent = new AtomicIntegerArray(n);
+        this.seed = seed;
+        for (int i = 0; i < n; i++) {
+            parent.set(i, i);
+        }
+    }
+
+    // a random but fixed linking priority for p; the mix is a bijection, so no two elements tie
+    private int priority(int p) {
+        int h = p ^ seed;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    // return the root of the set containing p, halving the path with CAS on the way;
+    // a failed CAS only means another thread already shortened the path
+    public int find(int p) {
+        while (true) {
+            int up = parent.get(p);
+            if (up == p) {
+                return p;
+            }
+            int grand = parent.get(up);
+            if (up != grand) {
+                parent.compareAndSet(p, up, grand);
+            }
+            p = grand;
+        }
+    }
+
+    // merge the sets containing p and q, linking the lower-priority root under the other;
+    // the link is a CAS that only succeeds while the child is still a root
+    public void union(int p, int q) {
+        while (true) {
+            int rootP = find(p);
+            int rootQ = find(q);
+            if (rootP == rootQ) {
+                return;
+            }
+            if (priority(rootP) > priority(rootQ)) {
+                int swap = rootP;
+                rootP = rootQ;
+                rootQ = swap;
+            }
+            if (parent.compareAndSet(rootP, rootP, rootQ)) {
+                return;
+            }
+        }
+    }
+
+    // are p and q in the same set? linearizes at a moment when p's root was still a root
+    public boolean connected(int p, int q) {
+        while (true) {
+            int rootP = find(p);
+            int rootQ = find(q);
+            if (rootP == rootQ) {
+                return true;
+            }
+            if (parent.get(rootP) == rootP) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.SplittableRandom;
+
+public class LargePercolation {
+    // the low 56 bits of a parent entry hold the parent index; the top byte is only kept up to
+    // date at roots, where its low six bits hold the rank, and TOP and BOTTOM mean the site's
+    // cluster touches the first or last row
+    private static final int RANK_SHIFT = 56;
+    private static final long PARENT_MASK = (1L << RANK_SHIFT) - 1;
+    private static final long RANK_MASK = 0x3F;
+    private static final long TOP = 1L << 62;
+    private static final long BOTTOM = 1L << 63;
+    private static final long FLAGS = TOP | BOTTOM;
+
+    // initialize instance variables
+    private final int n;
+    private final LongSegments open;
+    private final LongSegments parent;
+    private long openSites;
+    private boolean percolates;
+
+    // creates n-by-n grid, with all sites initially blocked
+    public LargePercolation(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be greater than 0");
+        }
+
+        this.n = n;
+        long sites = (long) n * n;
+
+        // one bit of open state per site, one parent word per site
+        this.open = new LongSegments((sites + 63) >>> 6);
+        this.parent = new LongSegments(sites);
+        for (long i = 0; i < sites; i++) {
+            parent.set(i, i);
+        }
+    }
+
+    // help make sure if the given index (r, c) is valid
+    private boolean isIndexValid(int r, int c) {
+        return r > 0 && r <= n && c > 0 && c <= n;
+    }
+
+    // help convert (r, c) to index used in grid
+    private long convertIndex(int r, int c) {
+        return (long) (r - 1) * n + c - 1;
+    }
+
+    // help read the open bit of the site at index
+    private boolean isOpenAt(long index) {
+        return (open.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    // opens the site (row, col) if it is not open already
+    public void open(int row, int col) {
+        if (!isIndexValid(row, col)) {
+            throw new IllegalArgumentException("index outside the prescribed range");
+        }
+
+        long index = convertIndex(row, col);
+        if (isOpenAt(index)) {
+            return;
+        }
+        open.set(index >>> 6, open.get(index >>> 6) | (1L << index));
+        openSites++;
+
+        // mark the new site as touching the first or last row
+        long flags = 0;
+        if (row == 1) {
+            flags |= TOP;
+        }
+        if (row == n) {
+            flags |= BOTTOM;
+        }
+        parent.set(index, flags | index);
+
+        // connect the new open site to its adjacent open sites
+        if (row > 1 && isOpenAt(index - n)) {
+            union(index - n, index);
+        }
+        if (row < n && isOpenAt(index + n)) {
+            union(index + n, index);
+        }
+        if (col > 1 && isOpenAt(index - 1)) {
+            union(index - 1, index);
+        }
+        if (col < n && isOpenAt(index + 1)) {
+            union(index + 1, index);
+        }
+
+        if ((parent.get(find(index)) & FLAGS) == FLAGS) {
+            percolates = true;
+        }
+    }
+
+    // is the site (row, col) open?
+    public boolean isOpen(int row, int col) {
+        if (!isIndexValid(row, col)) {
+            throw new IllegalArgumentException("Index outside the prescribed range");
+        }
+        return isOpenAt(convertIndex(row, col));
+    }
+
+    // is the site (row, col) full?
+    public boolean isFull(int row, int col) {
+        if (!isIndexValid(row, col)) {
+            throw new IllegalArgumentException("Index outside the prescribed range");
+        }
+        long index = convertIndex(row, col);
+        return isOpenAt(index) && (parent.get(find(index)) & TOP) != 0;
+    }
+
+    // returns the number of open sites
+    public long numberOfOpenSites() {
+        return openSites;
+    }
+
+    // does the system percolate?
+    public boolean percolates() {
+        return percolates;
+    }
+
+    // return the root of p, halving the path on the way
+    private long find(long p) {
+        long up = parent.get(p) & PARENT_MASK;
+        while (p != up) {
+            long grand = parent.get(up) & PARENT_MASK;
+            parent.set(p, (parent.get(p) & ~PARENT_MASK) | grand);
+            p = grand;
+            up = parent.get(p) & PARENT_MASK;
+        }
+        return p;
+    }
+
+    // merge the sets containing p and q by rank, leaving the combined flags at the new root
+    private void union(long p, long q) {
+        long rootP = find(p);
+        long rootQ = find(q);
+        if (rootP == rootQ) {
+            return;
+        }
+
+        long wordP = parent.get(rootP);
+        long wordQ = parent.get(rootQ);
+        long flags = (wordP | wordQ) & FLAGS;
+        long rankP = (wordP >>> RANK_SHIFT) & RANK_MASK;
+        long rankQ = (wordQ >>> RANK_SHIFT) & RANK_MASK;
+        if (rankP < rankQ) {
+            parent.set(rootP, (rankP << RANK_SHIFT) | rootQ);
+            parent.set(rootQ, flags | (rankQ << RANK_SHIFT) | rootQ);
+        } else {
+            parent.set(rootQ, (rankQ << RANK_SHIFT) | rootP);
+            long rank = rankP == rankQ ? rankP + 1 : rankP;
+            parent.set(rootP, flags | (rank << RANK_SHIFT) | rootP);
+        }
+    }
+
+    // a long-indexed array of longs stored off-heap in fixed-size direct buffers
+    private static class LongSegments {
+        private static final int SHIFT = 27;
+        private static final long MASK = (1L << SHIFT) - 1;
+        private final LongBuffer[] segments;
+
+        LongSegments(long length) {
+            int count = (int) ((length + MASK) >>> SHIFT);
+            segments = new LongBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long remaining = length - ((long) i << SHIFT);
+                int capacity = (int) Math.min(remaining, 1L << SHIFT);
+                segments[i] = ByteBuffer.allocateDirect(capacity * Long.BYTES)
+                        .order(ByteOrder.nativeOrder()).asLongBuffer();
+            }
+        }
+
+        long get(long i) {
+            return segments[(int) (i >>> SHIFT)].get((int) (i & MASK));
+        }
+
+        void set(long i, long value) {
+            segments[(int) (i >>> SHIFT)].put((int) (i & MASK), value);
+        }
+    }
+
+    // test client: open random sites on an n-by-n grid until it percolates
+    public static void main(String[] args) {
+        int n = Integer.parseInt(args[0]);
+        SplittableRandom random = new SplittableRandom();
+        LargePercolation p = new LargePercolation(n);
+        while (!p.percolates()) {
+            p.open(random.nextInt(n) + 1, random.nextInt(n) + 1);
+        }
+        System.out.println("open sites = " + p.numberOfOpenSites());
+        System.out.println("threshold  = " + (double) p.numberOfOpenSites() / ((double) n * n));
+    }
+}
@@ -0,0 +1,45 @@
+public class PathHalvingUF implements UnionFind {
+    // initialize instance variables
+    private final int[] parent;
+    private final int[] size;
+
+    // initialize n elements 0 through n-1, each in its own set
+    public PathHalvingUF(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("n must not be negative");
+        }
+        parent = new int[n];
+        size = new int[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+            size[i] = 1;
+        }
+    }
+
+    // return the canonical element of the set containing p,
+    // pointing every other node on the path at its grandparent
+    public int find(int p) {
+        while (p != parent[p]) {
+            parent[p] = parent[parent[p]];
+            p = parent[p];
+        }
+        return p;
+    }
+
+    // merge the set containing p with the set containing q, linking the smaller root under the larger
+    public void union(int p, int q) {
+        int rootP = find(p);
+        int rootQ = find(q);
+        if (rootP == rootQ) {
+            return;
+        }
+
+        if (size[rootP] < size[rootQ]) {
+            parent[rootP] = rootQ;
+            size[rootQ] += size[rootP];
+        } else {
+            parent[rootQ] = rootP;
+            size[rootP] += size[rootQ];
+        }
+    }
+}
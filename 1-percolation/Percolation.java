@@ -3,17 +3,64 @@ import edu.princeton.cs.algs4.WeightedQuickUnionUF;
 public class Percolation {
     // initialize instance variables
     private final int n;
-    private final boolean[] grid;
-    private final WeightedQuickUnionUF uf;
+    private final byte[] state;
+    private final int[] size;
+    private final UnionFind uf;
+    private int openSites;
+    private int clusters;
+    private int largestCluster;
+    private boolean percolates;
+
+    // bits of a site's state; TOP and BOTTOM are only kept up to date at union-find roots,
+    // where they mean the site's cluster touches the first or last row; likewise size is
+    // only kept up to date at roots, where it is the number of sites in the cluster
+    private static final byte OPEN = 1;
+    private static final byte TOP = 2;
+    private static final byte BOTTOM = 4;
+
+    // the union-find engine that tracks connectivity between open sites
+    public enum Engine {
+        // algs4 weighted quick-union, without path compression
+        WEIGHTED_QUICK_UNION,
+        // in-project weighted quick-union with path halving
+        PATH_HALVING
+    }
 
     // creates n-by-n grid, with all sites initially blocked
     public Percolation(int n) {
+        this(n, Engine.PATH_HALVING);
+    }
+
+    // creates n-by-n grid backed by the given union-find engine
+    public Percolation(int n, Engine engine) {
         if (n <= 0) {
             throw new IllegalArgumentException("n must be greater than 0");
+        } else if (engine == null) {
+            throw new IllegalArgumentException("engine should not be null");
         } else {
             this.n = n;
-            this.grid= new boolean[n * n];
-            this.uf = new WeightedQuickUnionUF(n * n + 2);
+            this.state = new byte[n * n];
+            this.size = new int[n * n];
+            this.uf = engine == Engine.PATH_HALVING
+                    ? new PathHalvingUF(n * n)
+                    : new Algs4UF(n * n);
+        }
+    }
+
+    // adapt algs4's WeightedQuickUnionUF to the UnionFind interface
+    private static class Algs4UF implements UnionFind {
+        private final WeightedQuickUnionUF uf;
+
+        Algs4UF(int n) {
+            uf = new WeightedQuickUnionUF(n);
+        }
+
+        public int find(int p) {
+            return uf.find(p);
+        }
+
+        public void union(int p, int q) {
+            uf.union(p, q);
         }
     }
 
@@ -32,64 +79,111 @@ public class Percolation {
         if (!isIndexValid(row, col)) {
             throw new IllegalArgumentException("index outside the prescribed range");
         } else {
-            // open the site
             int index = convertIndex(row, col);
-            grid[index] = true;
+            if (state[index] != 0) {
+                return;
+            }
 
-            // connect the first row with virtual top
+            // open the site, marking it as touching the first or last row
+            byte flags = OPEN;
             if (row == 1) {
-                uf.union(index, n * n);
+                flags |= TOP;
             }
-
-            // connect the last row with virtual bottom
             if (row == n) {
-                uf.union(index, n * n + 1);
+                flags |= BOTTOM;
+            }
+            state[index] = flags;
+            size[index] = 1;
+            openSites++;
+            clusters++;
+
+            // connect the new open site to its adjacent open sites;
+            // the grid is read directly since (row, col) is already validated
+            if (row > 1 && state[index - n] != 0) {
+                connect(index - n, index);
+            }
+            if (row < n && state[index + n] != 0) {
+                connect(index + n, index);
+            }
+            if (col > 1 && state[index - 1] != 0) {
+                connect(index - 1, index);
+            }
+            if (col < n && state[index + 1] != 0) {
+                connect(index + 1, index);
             }
 
-            // connect the new open site to its adjacent open sites
-            int[][] possibleAdjSites = {{row - 1, col}, {row + 1, col}, {row, col - 1}, {row, col + 1}};
-
-            for (int[] site : possibleAdjSites) {
-                if (isIndexValid(site[0], site[1]) && isOpen(site[0], site[1])) {
-                    uf.union(convertIndex(site[0], site[1]), index);
-                }
+            int root = uf.find(index);
+            largestCluster = Math.max(largestCluster, size[root]);
+            if ((state[root] & (TOP | BOTTOM)) == (TOP | BOTTOM)) {
+                percolates = true;
             }
         }
     }
 
+    // merge the clusters of the open site and the new site,
+    // leaving the combined flags and size at the new root
+    private void connect(int site, int index) {
+        int rootSite = uf.find(site);
+        int rootIndex = uf.find(index);
+        if (rootSite == rootIndex) {
+            return;
+        }
+
+        uf.union(rootSite, rootIndex);
+        int root = uf.find(rootIndex);
+        state[root] = (byte) (state[rootSite] | state[rootIndex]);
+        size[root] = size[rootSite] + size[rootIndex];
+        clusters--;
+    }
+
     // is the site (row, col) open?
     public boolean isOpen(int row, int col) {
         if (!isIndexValid(row, col)) {
             throw new IllegalArgumentException("Index outside the prescribed range");
         } else {
-            return grid[convertIndex(row, col)];
+            return state[convertIndex(row, col)] != 0;
         }
     }
 
     // is the site (row, col) full?
+    // only the site's own cluster is consulted, so there is no backwash through the bottom row
     public boolean isFull(int row, int col) {
         if (!isIndexValid(row, col)) {
             throw new IllegalArgumentException("Index outside the prescribed range");
         } else {
-            return uf.find(convertIndex(row, col)) == uf.find(n * n);
+            int index = convertIndex(row, col);
+            return state[index] != 0 && (state[uf.find(index)] & TOP) != 0;
         }
     }
 
     // returns the number of open sites
     public int numberOfOpenSites() {
-        int number = 0;
-        for (int i = 0; i < n * n; i++) {
-            if (grid[i]) {
-                number++;
-            }
-        }
-
-        return number;
+        return openSites;
     }
 
     // does the system percolate?
     public boolean percolates() {
-        return uf.find(n * n) == uf.find(n * n + 1);
+        return percolates;
+    }
+
+    // returns the number of clusters of open sites
+    public int numberOfClusters() {
+        return clusters;
+    }
+
+    // returns the number of sites in the largest cluster
+    public int largestClusterSize() {
+        return largestCluster;
+    }
+
+    // returns the number of sites in the cluster containing (row, col), or 0 if it is blocked
+    public int clusterSize(int row, int col) {
+        if (!isIndexValid(row, col)) {
+            throw new IllegalArgumentException("Index outside the prescribed range");
+        } else {
+            int index = convertIndex(row, col);
+            return state[index] == 0 ? 0 : size[uf.find(index)];
+        }
     }
 
     public static void main(String[] args) {
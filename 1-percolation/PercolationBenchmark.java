@@ -0,0 +1,236 @@
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.IntPredicate;
+
+public class PercolationBenchmark {
+    // measured rounds after the warmup rounds, per benchmark
+    private static final int WARMUP = 3;
+    private static final int ROUNDS = 5;
+    // latency passes time one op in this many; timing every op would mostly measure the timer
+    private static final int SAMPLE_EVERY = 16;
+
+    // the order in which a benchmark opens sites
+    private enum Pattern {
+        // a uniformly random permutation of the sites
+        RANDOM,
+        // row by row, left to right
+        ROW_MAJOR,
+        // one checkerboard colour first, so nothing merges, then the other, so every open
+        // merges up to four clusters: the most union work per open
+        ADVERSARIAL
+    }
+
+    // allocation counter for the current thread, when the JVM provides one
+    private static final com.sun.management.ThreadMXBean THREADS =
+            ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean
+                    ? (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()
+                    : null;
+
+    // bytes allocated so far by the current thread, or 0 if unknown
+    private static long allocated() {
+        return THREADS == null ? 0 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    // the sites of an n-by-n grid in the given pattern, as 0-based indices
+    private static int[] order(int n, Pattern pattern, SplittableRandom random) {
+        int total = n * n;
+        int[] sites = new int[total];
+        if (pattern == Pattern.ADVERSARIAL) {
+            int k = 0;
+            for (int parity = 0; parity < 2; parity++) {
+                for (int i = 0; i < total; i++) {
+                    if ((i / n + i % n) % 2 == parity) {
+                        sites[k++] = i;
+                    }
+                }
+            }
+            return sites;
+        }
+
+        for (int i = 0; i < total; i++) {
+            sites[i] = i;
+        }
+        if (pattern == Pattern.RANDOM) {
+            for (int i = total - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = sites[i];
+                sites[i] = sites[j];
+                sites[j] = swap;
+            }
+        }
+        return sites;
+    }
+
+    // the results of one benchmark: ops per second, latency percentiles and bytes per op
+    private static void report(String name, long ops, long nanos, long bytes, long[] latencies, int sampled) {
+        Arrays.sort(latencies, 0, sampled);
+        System.out.printf("%-46s %12.0f ops/s  p50 %6d ns  p99 %6d ns  p99.9 %7d ns  %8.2f B/op%n",
+                name, ops * 1e9 / nanos,
+                percentile(latencies, sampled, 0.50), percentile(latencies, sampled, 0.99),
+                percentile(latencies, sampled, 0.999), (double) bytes / ops);
+    }
+
+    // the q-quantile of the first count values of a sorted array
+    private static long percentile(long[] sorted, int count, double q) {
+        return count == 0 ? 0 : sorted[Math.min(count - 1, (int) (q * count))];
+    }
+
+    // the median cost of a back-to-back pair of nanoTime calls, which every latency includes
+    private static long timerOverhead() {
+        long[] pairs = new long[1_000_000];
+        for (int i = 0; i < pairs.length; i++) {
+            long t0 = System.nanoTime();
+            pairs[i] = System.nanoTime() - t0;
+        }
+        Arrays.sort(pairs);
+        return pairs[pairs.length / 2];
+    }
+
+    // room for the latencies sampled from count ops in each measured round
+    private static long[] latencyBuffer(int count) {
+        return new long[ROUNDS * ((count + SAMPLE_EVERY - 1) / SAMPLE_EVERY)];
+    }
+
+    // time open over the first density * n * n sites of the pattern, on a fresh grid each round;
+    // throughput and allocation come from untimed loops, the percentiles from a separate pass
+    // that times a sample of the ops in every round
+    private static void benchOpen(int n, Percolation.Engine engine, Pattern pattern, double density) {
+        int[] sites = order(n, pattern, new SplittableRandom(1));
+        int count = (int) (density * sites.length);
+
+        long nanos = 0;
+        long bytes = 0;
+        for (int round = 0; round < WARMUP + ROUNDS; round++) {
+            Percolation p = new Percolation(n, engine);
+            long before = allocated();
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                p.open(sites[i] / n + 1, sites[i] % n + 1);
+            }
+            if (round >= WARMUP) {
+                nanos += System.nanoTime() - start;
+                bytes += allocated() - before;
+            }
+        }
+
+        long[] latencies = latencyBuffer(count);
+        int sampled = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            Percolation p = new Percolation(n, engine);
+            for (int i = 0; i < count; i++) {
+                if (i % SAMPLE_EVERY == 0) {
+                    long t0 = System.nanoTime();
+                    p.open(sites[i] / n + 1, sites[i] % n + 1);
+                    latencies[sampled++] = System.nanoTime() - t0;
+                } else {
+                    p.open(sites[i] / n + 1, sites[i] % n + 1);
+                }
+            }
+        }
+        report(String.format("open n=%d %s %s d=%.2f", n, engine, pattern, density),
+                (long) count * ROUNDS, nanos, bytes, latencies, sampled);
+    }
+
+    // time a query at random sites of a grid opened to the given density
+    private static void benchQuery(String name, int n, double density, IntPredicate query) {
+        int queries = 1_000_000;
+        SplittableRandom random = new SplittableRandom(2);
+        int[] sites = new int[queries];
+        for (int i = 0; i < queries; i++) {
+            sites[i] = random.nextInt(n * n);
+        }
+
+        long nanos = 0;
+        long bytes = 0;
+        int sink = 0;
+        for (int round = 0; round < WARMUP + ROUNDS; round++) {
+            long before = allocated();
+            long start = System.nanoTime();
+            for (int i = 0; i < queries; i++) {
+                sink += query.test(sites[i]) ? 1 : 0;
+            }
+            if (round >= WARMUP) {
+                nanos += System.nanoTime() - start;
+                bytes += allocated() - before;
+            }
+        }
+
+        long[] latencies = latencyBuffer(queries);
+        int sampled = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int i = 0; i < queries; i += SAMPLE_EVERY) {
+                long t0 = System.nanoTime();
+                sink += query.test(sites[i]) ? 1 : 0;
+                latencies[sampled++] = System.nanoTime() - t0;
+            }
+        }
+        report(String.format("%s n=%d d=%.2f", name, n, density),
+                (long) queries * ROUNDS, nanos, bytes, latencies, sampled);
+        if (sink == -1) {
+            System.out.println();
+        }
+    }
+
+    // time isFull, percolates and numberOfOpenSites on a randomly opened grid
+    private static void benchQueries(int n, double density) {
+        Percolation p = new Percolation(n);
+        int[] sites = order(n, Pattern.RANDOM, new SplittableRandom(1));
+        for (int i = 0; i < (int) (density * sites.length); i++) {
+            p.open(sites[i] / n + 1, sites[i] % n + 1);
+        }
+
+        benchQuery("isFull", n, density, site -> p.isFull(site / n + 1, site % n + 1));
+        benchQuery("percolates", n, density, site -> p.percolates());
+        benchQuery("numberOfOpenSites", n, density, site -> p.numberOfOpenSites() > site);
+    }
+
+    // time whole PercolationStats runs with each sampling mode, serially so that all the
+    // allocation happens on the measuring thread
+    private static void benchStats(int n, int trials) {
+        for (PercolationStats.Sampling sampling : PercolationStats.Sampling.values()) {
+            long nanos = Long.MAX_VALUE;
+            long bytes = 0;
+            for (int round = 0; round < 1 + ROUNDS; round++) {
+                long before = allocated();
+                long start = System.nanoTime();
+                new PercolationStats(n, trials, sampling);
+                long elapsed = System.nanoTime() - start;
+                // the first round only warms up
+                if (round > 0) {
+                    nanos = Math.min(nanos, elapsed);
+                    bytes += allocated() - before;
+                }
+            }
+            System.out.printf("%-46s %12.3f ms/run (best of %d)  %14d B/run (mean)%n",
+                    String.format("PercolationStats n=%d T=%d %s", n, trials, sampling),
+                    nanos / 1e6, ROUNDS, bytes / ROUNDS);
+        }
+    }
+
+    // usage: [sizes...], default 100 1000; large sizes such as 10000 need a heap of a few GB
+    public static void main(String[] args) {
+        int[] sizes = args.length == 0
+                ? new int[] {100, 1000}
+                : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+        double[] densities = {0.3, 0.593, 1.0};
+        System.out.printf("latencies time 1 op in %d and include a nanoTime pair of about %d ns%n",
+                SAMPLE_EVERY, timerOverhead());
+
+        for (int n : sizes) {
+            for (Percolation.Engine engine : Percolation.Engine.values()) {
+                for (Pattern pattern : Pattern.values()) {
+                    for (double density : densities) {
+                        benchOpen(n, engine, pattern, density);
+                    }
+                }
+            }
+            for (double density : densities) {
+                benchQueries(n, density);
+            }
+            if (n <= 1000) {
+                benchStats(n, Math.max(10, 100_000 / n));
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// an append-only binary log of completed PercolationStats trials.
+// layout: a header (magic, n, trials, seed, sampling), then one block per batch of trials
+// (magic, first trial, count, count * (threshold, largest cluster, clusters),
+// then the running count, mean and sum of squared deviations of the threshold).
+// a block cut short by a crash is dropped on load.
+class PercolationCheckpoint implements Closeable {
+    private static final int HEADER_MAGIC = 0x50434b31;
+    private static final int BLOCK_MAGIC = 0x50424c4b;
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 8 + 4;
+    private static final int RECORD_BYTES = 3 * 8;
+    private static final int BLOCK_OVERHEAD = 4 + 4 + 4 + 8 + 8 + 8;
+
+    // initialize instance variables
+    private final FileChannel channel;
+    private final long syncNanos;
+    private long lastSync;
+
+    // Welford's running moments of the threshold over the logged trials
+    private long count;
+    private double mean;
+    private double m2;
+
+    // open or create the log for an experiment, rejecting a log written for different parameters
+    PercolationCheckpoint(Path file, int n, int trials, long seed, int sampling, long syncMillis)
+            throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.syncNanos = syncMillis * 1_000_000;
+        this.lastSync = System.nanoTime();
+
+        // the channel is only handed over once the header checks out
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            if (channel.size() < HEADER_BYTES) {
+                header.putInt(HEADER_MAGIC).putInt(n).putInt(trials).putLong(seed).putInt(sampling).flip();
+                channel.truncate(0);
+                channel.write(header, 0);
+                channel.force(true);
+            } else {
+                channel.read(header, 0);
+                header.flip();
+                if (header.getInt() != HEADER_MAGIC || header.getInt() != n || header.getInt() != trials
+                        || header.getLong() != seed || header.getInt() != sampling) {
+                    throw new IllegalArgumentException("checkpoint was written for a different experiment");
+                }
+            }
+            channel.position(HEADER_BYTES);
+        } catch (IOException | RuntimeException e) {
+            try {
+                channel.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    // copy the logged trials into the arrays, in trial order, returning how many there are;
+    // anything after the last complete block is discarded
+    int load(double[] ratio, double[] largest, double[] clusters) throws IOException {
+        long position = HEADER_BYTES;
+        long size = channel.size();
+        int done = 0;
+        ByteBuffer head = ByteBuffer.allocate(12);
+
+        while (position + BLOCK_OVERHEAD <= size) {
+            head.clear();
+            channel.read(head, position);
+            head.flip();
+            int magic = head.getInt();
+            int first = head.getInt();
+            int k = head.getInt();
+            long blockBytes = BLOCK_OVERHEAD + (long) k * RECORD_BYTES;
+            if (magic != BLOCK_MAGIC || first != done || k <= 0 || done + k > ratio.length
+                    || position + blockBytes > size) {
+                break;
+            }
+
+            ByteBuffer body = ByteBuffer.allocate((int) blockBytes - 12);
+            channel.read(body, position + 12);
+            body.flip();
+            for (int i = first; i < first + k; i++) {
+                ratio[i] = body.getDouble();
+                largest[i] = body.getDouble();
+                clusters[i] = body.getDouble();
+            }
+            count = body.getLong();
+            mean = body.getDouble();
+            m2 = body.getDouble();
+
+            done += k;
+            position += blockBytes;
+        }
+
+        channel.truncate(position);
+        channel.position(position);
+        return done;
+    }
+
+    // append trials first .. first + k - 1 as one block, syncing to disk if the interval has passed
+    void append(int first, int k, double[] ratio, double[] largest, double[] clusters) throws IOException {
+        ByteBuffer block = ByteBuffer.allocate(BLOCK_OVERHEAD + k * RECORD_BYTES);
+        block.putInt(BLOCK_MAGIC).putInt(first).putInt(k);
+        for (int i = first; i < first + k; i++) {
+            block.putDouble(ratio[i]).putDouble(largest[i]).putDouble(clusters[i]);
+
+            count++;
+            double delta = ratio[i] - mean;
+            mean += delta / count;
+            m2 += delta * (ratio[i] - mean);
+        }
+        block.putLong(count).putDouble(mean).putDouble(m2).flip();
+        while (block.hasRemaining()) {
+            channel.write(block);
+        }
+
+        long now = System.nanoTime();
+        if (now - lastSync >= syncNanos) {
+            channel.force(false);
+            lastSync = now;
+        }
+    }
+
+    // sync whatever is left and close the log
+    public void close() throws IOException {
+        try {
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+    }
+}
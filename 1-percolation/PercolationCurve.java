@@ -0,0 +1,162 @@
+import edu.princeton.cs.algs4.StdRandom;
+
+import java.util.SplittableRandom;
+import java.util.function.IntUnaryOperator;
+
+public class PercolationCurve {
+    // initialize instance variables
+    private final int sites;
+    private final int t;
+    private final double[] spanning;
+    private final double[] largest;
+
+    // perform independent Newman-Ziff trials on an n-by-n grid
+    public PercolationCurve(int n, int trials) {
+        this(n, trials, StdRandom::uniformInt);
+    }
+
+    // perform independent Newman-Ziff trials on an n-by-n grid, drawing from the given seed
+    public PercolationCurve(int n, int trials, long seed) {
+        this(n, trials, new SplittableRandom(seed)::nextInt);
+    }
+
+    // where uniform maps a bound to a random int in [0, bound)
+    private PercolationCurve(int n, int trials, IntUnaryOperator uniform) {
+        if (n <= 0 || trials <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        this.sites = n * n;
+        this.t = trials;
+
+        // spanning[k] counts trials spanned by k open sites,
+        // largest[k] sums the largest cluster size after k opens
+        int[] spannedAt = new int[sites + 1];
+        this.largest = new double[sites + 1];
+        for (int i = 0; i < t; i++) {
+            spannedAt[trial(n, uniform, largest)]++;
+        }
+
+        // spanning is monotone in k, so Q(k) is the running sum of first-spanning counts
+        this.spanning = new double[sites + 1];
+        int spanned = 0;
+        for (int k = 0; k <= sites; k++) {
+            spanned += spannedAt[k];
+            spanning[k] = (double) spanned / t;
+            largest[k] = largest[k] / t / sites;
+        }
+    }
+
+    // open every site once in random order, adding the largest cluster size after each open
+    // into largest[k], and return the number of open sites at which the system first percolates
+    private static int trial(int n, IntUnaryOperator uniform, double[] largest) {
+        int total = n * n;
+        int[] order = new int[total];
+        for (int i = 0; i < total; i++) {
+            order[i] = i;
+        }
+
+        Percolation p = new Percolation(n);
+        int spannedAt = total;
+        for (int k = 0; k < total; k++) {
+            // swap a random site from the unopened suffix into position k
+            int j = k + uniform.applyAsInt(total - k);
+            int site = order[j];
+            order[j] = order[k];
+            order[k] = site;
+
+            p.open(site / n + 1, site % n + 1);
+
+            largest[k + 1] += p.largestClusterSize();
+            if (spannedAt == total && p.percolates()) {
+                spannedAt = k + 1;
+            }
+        }
+        return spannedAt;
+    }
+
+    // help make sure k is a valid number of open sites
+    private void validate(int k) {
+        if (k < 0 || k > sites) {
+            throw new IllegalArgumentException("k outside the prescribed range");
+        }
+    }
+
+    // fraction of trials that percolate with exactly k open sites
+    public double spanningProbability(int k) {
+        validate(k);
+        return spanning[k];
+    }
+
+    // mean largest cluster size, as a fraction of all sites, with exactly k open sites
+    public double largestClusterFraction(int k) {
+        validate(k);
+        return largest[k];
+    }
+
+    // probability that the system percolates when each site is open with probability p
+    public double spanningProbability(double p) {
+        return convolve(spanning, p);
+    }
+
+    // mean largest cluster fraction when each site is open with probability p
+    public double largestClusterFraction(double p) {
+        return convolve(largest, p);
+    }
+
+    // weight the per-k values by the binomial(sites, p) distribution of the open count
+    private double convolve(double[] values, double p) {
+        if (!(p >= 0.0 && p <= 1.0)) {
+            throw new IllegalArgumentException("p must be in [0, 1]");
+        }
+        if (p == 0.0) {
+            return values[0];
+        }
+        if (p == 1.0) {
+            return values[sites];
+        }
+
+        // start at the mode with weight 1 and walk outwards, so no weight overflows;
+        // stop once the terms are too small to change the sum
+        int mode = (int) Math.min(sites, Math.floor((sites + 1) * p));
+        double odds = p / (1.0 - p);
+        double sum = values[mode];
+        double norm = 1.0;
+
+        double w = 1.0;
+        for (int k = mode; k < sites && w > 1e-300; k++) {
+            w *= (double) (sites - k) / (k + 1) * odds;
+            sum += w * values[k + 1];
+            norm += w;
+        }
+
+        w = 1.0;
+        for (int k = mode; k > 0 && w > 1e-300; k--) {
+            w *= (double) k / (sites - k + 1) / odds;
+            sum += w * values[k - 1];
+            norm += w;
+        }
+
+        return sum / norm;
+    }
+
+    // number of trials
+    public int trials() {
+        return t;
+    }
+
+    // test client: n trials [seed]
+    public static void main(String[] args) {
+        int n = Integer.parseInt(args[0]);
+        int trials = Integer.parseInt(args[1]);
+        PercolationCurve curve = args.length >= 3
+                ? new PercolationCurve(n, trials, Long.parseLong(args[2]))
+                : new PercolationCurve(n, trials);
+
+        for (int i = 0; i <= 20; i++) {
+            double p = i / 20.0;
+            System.out.printf("p = %.2f  P(span) = %.6f  largest = %.6f%n",
+                    p, curve.spanningProbability(p), curve.largestClusterFraction(p));
+        }
+    }
+}
@@ -1,36 +1,259 @@
 import edu.princeton.cs.algs4.StdRandom;
 import edu.princeton.cs.algs4.StdStats;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
 public class PercolationStats {
     // initialize instance variables
     private final double mean;
     private final double stddev;
     private final int t;
+    private final double largestCluster;
+    private final double clusters;
     private final static double confidence95 = 1.96;
 
+    // trials per batch in adaptive mode; fixed so the stopping point never depends on thread count
+    private final static int BATCH = 64;
+
+    // how a trial chooses the next site to open
+    public enum Sampling {
+        // draw uniform (row, col) pairs, re-drawing sites that are already open
+        REJECTION,
+        // draw every blocked site exactly once, via an incremental Fisher-Yates shuffle
+        WITHOUT_REPLACEMENT
+    }
+
     // perform independent trials on an n-by-n grid
     public PercolationStats(int n, int trials) {
-        if (n <= 0 || trials <= 0) {
+        this(n, trials, Sampling.REJECTION);
+    }
+
+    // perform independent trials on an n-by-n grid, choosing sites with the given sampling
+    public PercolationStats(int n, int trials, Sampling sampling) {
+        if (n <= 0 || trials <= 0 || sampling == null) {
+            throw new IllegalArgumentException();
+        }
+
+        this.t = trials;
+        double[] ratio = new double[t];
+        double[] largest = new double[t];
+        double[] count = new double[t];
+
+        for (int i = 0; i < t; i++) {
+            // calculate threshold and cluster statistics for the ith trial
+            record(n, trial(n, sampling, StdRandom::uniformInt), i, ratio, largest, count);
+        }
+
+        this.mean = StdStats.mean(ratio);
+        this.stddev = StdStats.stddev(ratio);
+        this.largestCluster = StdStats.mean(largest);
+        this.clusters = StdStats.mean(count);
+    }
+
+    // perform independent trials on an n-by-n grid in parallel over the given number of threads;
+    // the results depend only on the seed, never on the thread count
+    public PercolationStats(int n, int trials, long seed, int threads) {
+        this(n, trials, seed, threads, Sampling.REJECTION);
+    }
+
+    // perform independent trials in parallel, choosing sites with the given sampling
+    public PercolationStats(int n, int trials, long seed, int threads, Sampling sampling) {
+        if (n <= 0 || trials <= 0 || threads <= 0 || sampling == null) {
             throw new IllegalArgumentException();
         }
 
         this.t = trials;
         double[] ratio = new double[t];
+        double[] largest = new double[t];
+        double[] count = new double[t];
 
+        // split one stream per trial up front, in trial order, so every trial
+        // sees the same random sequence whichever worker ends up running it
+        SplittableRandom master = new SplittableRandom(seed);
+        SplittableRandom[] streams = new SplittableRandom[t];
         for (int i = 0; i < t; i++) {
-            Percolation p = new Percolation(n);
-            while (!p.percolates()) {
-                int randomRow = StdRandom.uniformInt(n) + 1;
-                int randomCol = StdRandom.uniformInt(n) + 1;
-                p.open(randomRow, randomCol);
+            streams[i] = master.split();
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.submit(() -> IntStream.range(0, t).parallel()
+                    .forEach(i -> record(n, trial(n, sampling, streams[i]::nextInt), i,
+                            ratio, largest, count))).join();
+        } finally {
+            pool.shutdown();
+        }
+
+        // ratio is merged by trial index, so the summation order is fixed
+        this.mean = StdStats.mean(ratio);
+        this.stddev = StdStats.stddev(ratio);
+        this.largestCluster = StdStats.mean(largest);
+        this.clusters = StdStats.mean(count);
+    }
+
+    // perform the same trials as the parallel constructor, logging each finished batch to the
+    // checkpoint file and syncing it at most every syncMillis; if the file already holds trials
+    // of this experiment, resume after them, giving the same statistics as an uninterrupted run
+    public PercolationStats(int n, int trials, long seed, int threads, Sampling sampling,
+                            Path checkpoint, long syncMillis) throws IOException {
+        if (n <= 0 || trials <= 0 || threads <= 0 || sampling == null || checkpoint == null
+                || syncMillis < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        this.t = trials;
+        double[] ratio = new double[t];
+        double[] largest = new double[t];
+        double[] count = new double[t];
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try (PercolationCheckpoint log = new PercolationCheckpoint(checkpoint, n, trials, seed,
+                sampling.ordinal(), syncMillis)) {
+            int done = log.load(ratio, largest, count);
+
+            // trial i always uses the ith split of the master stream, so skip the logged ones
+            SplittableRandom master = new SplittableRandom(seed);
+            for (int i = 0; i < done; i++) {
+                master.split();
             }
 
-            // calculate threshold for the ith trial
-            ratio[i] = ((double) p.numberOfOpenSites()) / (n * n);
+            SplittableRandom[] streams = new SplittableRandom[BATCH];
+            while (done < t) {
+                int first = done;
+                int k = Math.min(BATCH, t - done);
+                for (int i = 0; i < k; i++) {
+                    streams[i] = master.split();
+                }
+                pool.submit(() -> IntStream.range(0, k).parallel()
+                        .forEach(i -> record(n, trial(n, sampling, streams[i]::nextInt), first + i,
+                                ratio, largest, count))).join();
+
+                log.append(first, k, ratio, largest, count);
+                done += k;
+            }
+        } finally {
+            pool.shutdown();
         }
 
         this.mean = StdStats.mean(ratio);
         this.stddev = StdStats.stddev(ratio);
+        this.largestCluster = StdStats.mean(largest);
+        this.clusters = StdStats.mean(count);
+    }
+
+    // perform trials in parallel batches until the 95% confidence interval half-width is at most
+    // tolerance or the time budget is spent, keeping only running moments; trials() reports how
+    // many were run. Stopping on tolerance alone is reproducible for a given seed.
+    public PercolationStats(int n, double tolerance, long budgetMillis, long seed, int threads, Sampling sampling) {
+        if (n <= 0 || !(tolerance > 0) || budgetMillis <= 0 || threads <= 0 || sampling == null) {
+            throw new IllegalArgumentException();
+        }
+
+        long start = System.nanoTime();
+        long budget = budgetMillis >= Long.MAX_VALUE / 1_000_000 ? Long.MAX_VALUE : budgetMillis * 1_000_000;
+        SplittableRandom master = new SplittableRandom(seed);
+        SplittableRandom[] streams = new SplittableRandom[BATCH];
+        double[] batch = new double[BATCH];
+        double[] batchLargest = new double[BATCH];
+        double[] batchClusters = new double[BATCH];
+
+        // Welford's running mean and sum of squared deviations of the threshold,
+        // plus running sums of the cluster statistics
+        int count = 0;
+        double runningMean = 0.0;
+        double m2 = 0.0;
+        double largestSum = 0.0;
+        double clustersSum = 0.0;
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            while (true) {
+                for (int i = 0; i < BATCH; i++) {
+                    streams[i] = master.split();
+                }
+                pool.submit(() -> IntStream.range(0, BATCH).parallel()
+                        .forEach(i -> record(n, trial(n, sampling, streams[i]::nextInt), i,
+                                batch, batchLargest, batchClusters))).join();
+
+                // fold the batch in trial order
+                for (int i = 0; i < BATCH; i++) {
+                    double x = batch[i];
+                    count++;
+                    double delta = x - runningMean;
+                    runningMean += delta / count;
+                    m2 += delta * (x - runningMean);
+                    largestSum += batchLargest[i];
+                    clustersSum += batchClusters[i];
+                }
+
+                double halfWidth = confidence95 * Math.sqrt(m2 / (count - 1)) / Math.sqrt(count);
+                if (halfWidth <= tolerance || System.nanoTime() - start >= budget
+                        || count > Integer.MAX_VALUE - BATCH) {
+                    break;
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        this.t = count;
+        this.mean = runningMean;
+        this.stddev = Math.sqrt(m2 / (count - 1));
+        this.largestCluster = largestSum / count;
+        this.clusters = clustersSum / count;
+    }
+
+    // store the threshold, largest cluster fraction and cluster count of a finished trial,
+    // all read in O(1) from the statistics Percolation keeps while opening
+    private static void record(int n, Percolation p, int i, double[] ratio, double[] largest, double[] count) {
+        ratio[i] = ((double) p.numberOfOpenSites()) / (n * n);
+        largest[i] = ((double) p.largestClusterSize()) / (n * n);
+        count[i] = p.numberOfClusters();
+    }
+
+    // run a single trial, where uniform maps a bound to a random int in [0, bound),
+    // returning the grid as it first percolates
+    private static Percolation trial(int n, Sampling sampling, IntUnaryOperator uniform) {
+        if (sampling == Sampling.WITHOUT_REPLACEMENT) {
+            return trialWithoutReplacement(n, uniform);
+        }
+
+        Percolation p = new Percolation(n);
+        while (!p.percolates()) {
+            int randomRow = uniform.applyAsInt(n) + 1;
+            int randomCol = uniform.applyAsInt(n) + 1;
+            p.open(randomRow, randomCol);
+        }
+        return p;
+    }
+
+    // open sites in the order of a lazily drawn random permutation, so no draw is wasted
+    // on an already open site and a trial does at most n * n opens
+    private static Percolation trialWithoutReplacement(int n, IntUnaryOperator uniform) {
+        int total = n * n;
+        int[] sites = new int[total];
+        for (int i = 0; i < total; i++) {
+            sites[i] = i;
+        }
+
+        Percolation p = new Percolation(n);
+        int opened = 0;
+        while (!p.percolates()) {
+            // swap a random site from the unopened suffix into position opened
+            int j = opened + uniform.applyAsInt(total - opened);
+            int site = sites[j];
+            sites[j] = sites[opened];
+            sites[opened] = site;
+            opened++;
+
+            p.open(site / n + 1, site % n + 1);
+        }
+        return p;
     }
 
     // sample mean of percolation threshold
@@ -43,6 +266,21 @@ public class PercolationStats {
         return stddev;
     }
 
+    // mean fraction of all sites in the largest cluster at the moment of percolation
+    public double meanLargestClusterFraction() {
+        return largestCluster;
+    }
+
+    // mean number of clusters at the moment of percolation
+    public double meanNumberOfClusters() {
+        return clusters;
+    }
+
+    // number of trials performed
+    public int trials() {
+        return t;
+    }
+
     // low endpoint of 95% confidence interval
     public double confidenceLo() {
         return mean - confidence95 * stddev / Math.sqrt(t);
@@ -54,10 +292,33 @@ public class PercolationStats {
     }
 
     // test client (see below)
-    public static void main(String[] args) {
-        PercolationStats test = new PercolationStats(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+    public static void main(String[] args) throws IOException {
+        PercolationStats test;
+        if (args.length >= 6) {
+            test = new PercolationStats(Integer.parseInt(args[0]), Integer.parseInt(args[1]),
+                    Long.parseLong(args[2]), Integer.parseInt(args[3]), Sampling.valueOf(args[4]),
+                    Path.of(args[5]), 1000);
+        } else if (args.length > 0 && args[0].equals("--adaptive")) {
+            if (args.length != 3) {
+                throw new IllegalArgumentException("Usage: java PercolationStats --adaptive n tolerance");
+            }
+            test = new PercolationStats(Integer.parseInt(args[1]), Double.parseDouble(args[2]),
+                    Long.MAX_VALUE, System.nanoTime(), Runtime.getRuntime().availableProcessors(),
+                    Sampling.WITHOUT_REPLACEMENT);
+        } else if (args.length >= 5) {
+            test = new PercolationStats(Integer.parseInt(args[0]), Integer.parseInt(args[1]),
+                    Long.parseLong(args[2]), Integer.parseInt(args[3]), Sampling.valueOf(args[4]));
+        } else if (args.length >= 4) {
+            test = new PercolationStats(Integer.parseInt(args[0]), Integer.parseInt(args[1]),
+                    Long.parseLong(args[2]), Integer.parseInt(args[3]));
+        } else {
+            test = new PercolationStats(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+        }
         System.out.println("mean                    = " + test.mean());
         System.out.println("stddev                  = " + test.stddev());
         System.out.println("95% confidence interval = " + "[" + test.confidenceLo() + ", " + test.confidenceHi() + "]");
+        System.out.println("trials                  = " + test.trials());
+        System.out.println("largest cluster         = " + test.meanLargestClusterFraction());
+        System.out.println("clusters                = " + test.meanNumberOfClusters());
     }
 }
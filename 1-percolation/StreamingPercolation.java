@@ -0,0 +1,237 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+public class StreamingPercolation {
+    // a source of grid rows, read once each from top to bottom
+    public interface RowSource {
+        // fill row with the open state of the sites in row r (0-based)
+        void readRow(int r, boolean[] row);
+    }
+
+    // initialize instance variables
+    private final boolean percolates;
+    private final long openSites;
+    private final long clusters;
+    private final long largest;
+
+    // working state, all O(n): union-find slots 0..n-1 hold the previous row's clusters
+    // and slots n..2n-1 the clusters started in the current row
+    private final int[] parent;
+    private final long[] size;
+    private final boolean[] top;
+    private final int[] seen;
+    private final int[] remap;
+    private long finishedClusters;
+    private long finishedLargest;
+
+    // label the clusters of the n-by-n grid provided row by row, keeping only O(n) state
+    public StreamingPercolation(int n, RowSource rows) {
+        if (n <= 0 || rows == null) {
+            throw new IllegalArgumentException();
+        }
+
+        this.parent = new int[2 * n];
+        this.size = new long[2 * n];
+        this.top = new boolean[2 * n];
+        this.seen = new int[2 * n];
+        this.remap = new int[2 * n];
+
+        boolean[] row = new boolean[n];
+        int[] previous = new int[n];
+        int[] current = new int[n];
+        long[] nextSize = new long[n];
+        boolean[] nextTop = new boolean[n];
+        int previousCount = 0;
+        long open = 0;
+        Arrays.fill(previous, -1);
+
+        for (int r = 0; r < n; r++) {
+            rows.readRow(r, row);
+            for (int i = 0; i < previousCount; i++) {
+                parent[i] = i;
+            }
+
+            // label the row left to right against the sites above and to the left
+            for (int c = 0; c < n; c++) {
+                if (!row[c]) {
+                    current[c] = -1;
+                    continue;
+                }
+                open++;
+
+                int up = previous[c];
+                int left = c > 0 ? current[c - 1] : -1;
+                if (up < 0 && left < 0) {
+                    int label = n + c;
+                    parent[label] = label;
+                    size[label] = 1;
+                    top[label] = r == 0;
+                    current[c] = label;
+                } else {
+                    if (up >= 0 && left >= 0) {
+                        union(up, left);
+                    }
+                    current[c] = up >= 0 ? up : left;
+                    size[find(current[c])]++;
+                }
+            }
+
+            // a cluster of the previous row that no site of this row joined is complete
+            int stamp = r + 1;
+            for (int c = 0; c < n; c++) {
+                if (current[c] >= 0) {
+                    seen[find(current[c])] = stamp;
+                }
+            }
+            for (int i = 0; i < previousCount; i++) {
+                int root = find(i);
+                if (seen[root] != stamp && seen[root] != -stamp) {
+                    seen[root] = -stamp;
+                    finish(root);
+                }
+            }
+
+            // relabel this row's clusters compactly as 0..k-1 for the next row
+            int count = 0;
+            for (int c = 0; c < n; c++) {
+                if (current[c] < 0) {
+                    previous[c] = -1;
+                    continue;
+                }
+                int root = find(current[c]);
+                if (seen[root] == stamp) {
+                    seen[root] = 0;
+                    remap[root] = count;
+                    nextSize[count] = size[root];
+                    nextTop[count] = top[root];
+                    count++;
+                }
+                previous[c] = remap[root];
+            }
+            System.arraycopy(nextSize, 0, size, 0, count);
+            System.arraycopy(nextTop, 0, top, 0, count);
+            previousCount = count;
+        }
+
+        // every cluster still alive on the last row is complete, and spans if it touched the top
+        boolean spans = false;
+        for (int i = 0; i < previousCount; i++) {
+            finish(i);
+            spans |= top[i];
+        }
+
+        this.percolates = spans;
+        this.openSites = open;
+        this.clusters = finishedClusters;
+        this.largest = finishedLargest;
+    }
+
+    // read the n-by-n grid from a bit file: rows of (n + 7) / 8 bytes, site c of a row
+    // in bit (c % 8) of byte c / 8, mapped into memory a window of rows at a time
+    public static StreamingPercolation fromBitFile(Path file, int n) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long rowBytes = (n + 7) / 8;
+            if (channel.size() < rowBytes * n) {
+                throw new IllegalArgumentException("file is smaller than an n-by-n grid");
+            }
+            int rowsPerWindow = (int) Math.max(1, (1 << 30) / rowBytes);
+
+            RowSource rows = new RowSource() {
+                private MappedByteBuffer window;
+                private int windowStart = -1;
+
+                public void readRow(int r, boolean[] row) {
+                    if (window == null || r >= windowStart + rowsPerWindow) {
+                        int count = Math.min(rowsPerWindow, n - r);
+                        try {
+                            window = channel.map(FileChannel.MapMode.READ_ONLY, r * rowBytes, count * rowBytes);
+                        } catch (IOException e) {
+                            throw new IllegalStateException("cannot map rows of " + file, e);
+                        }
+                        windowStart = r;
+                    }
+                    int base = (int) ((r - windowStart) * rowBytes);
+                    for (int c = 0; c < n; c++) {
+                        row[c] = (window.get(base + (c >>> 3)) & (1 << (c & 7))) != 0;
+                    }
+                }
+            };
+            return new StreamingPercolation(n, rows);
+        }
+    }
+
+    // return the root of p, halving the path on the way
+    private int find(int p) {
+        while (p != parent[p]) {
+            parent[p] = parent[parent[p]];
+            p = parent[p];
+        }
+        return p;
+    }
+
+    // merge the clusters containing p and q, combining their sizes and top flags
+    private void union(int p, int q) {
+        int rootP = find(p);
+        int rootQ = find(q);
+        if (rootP == rootQ) {
+            return;
+        }
+        parent[rootQ] = rootP;
+        size[rootP] += size[rootQ];
+        top[rootP] |= top[rootQ];
+    }
+
+    // record a complete cluster
+    private void finish(int root) {
+        finishedClusters++;
+        finishedLargest = Math.max(finishedLargest, size[root]);
+    }
+
+    // does the system percolate?
+    public boolean percolates() {
+        return percolates;
+    }
+
+    // returns the number of open sites
+    public long numberOfOpenSites() {
+        return openSites;
+    }
+
+    // returns the number of clusters of open sites
+    public long numberOfClusters() {
+        return clusters;
+    }
+
+    // returns the number of sites in the largest cluster
+    public long largestClusterSize() {
+        return largest;
+    }
+
+    // test client: check the grid in a bit file (n file), or a random grid
+    // generated row by row without ever being stored (n p seed)
+    public static void main(String[] args) throws IOException {
+        int n = Integer.parseInt(args[0]);
+        StreamingPercolation check;
+        if (args.length == 2) {
+            check = fromBitFile(Path.of(args[1]), n);
+        } else {
+            double p = Double.parseDouble(args[1]);
+            SplittableRandom random = new SplittableRandom(Long.parseLong(args[2]));
+            check = new StreamingPercolation(n, (r, row) -> {
+                for (int c = 0; c < n; c++) {
+                    row[c] = random.nextDouble() < p;
+                }
+            });
+        }
+
+        System.out.println("percolates       = " + check.percolates());
+        System.out.println("open sites       = " + check.numberOfOpenSites());
+        System.out.println("clusters         = " + check.numberOfClusters());
+        System.out.println("largest cluster  = " + check.largestClusterSize());
+    }
+}
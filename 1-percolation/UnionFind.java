@@ -0,0 +1,8 @@
+// the union-find operations Percolation needs, so the engine behind it can be swapped
+public interface UnionFind {
+    // return the canonical element of the set containing p
+    int find(int p);
+
+    // merge the set containing p with the set containing q
+    void union(int p, int q);
+}
@@ -0,0 +1,104 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// splits a byte stream into whitespace-separated tokens straight from a large buffer,
+// without regular expressions, and without decoding the tokens it is told to skip
+class ByteTokenizer {
+    private final InputStream in;
+    private final byte[] buffer = new byte[1 << 16];
+    private int position;
+    private int limit;
+
+    // bytes of the token being read when it straddles a buffer refill
+    private byte[] token = new byte[64];
+
+    ByteTokenizer(InputStream in) {
+        this.in = in;
+    }
+
+    // ASCII whitespace, the separators StdIn.readString() also splits on
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f' || b == 0x0b;
+    }
+
+    // make at least one unread byte available, returning false at end of input
+    private boolean fill() {
+        if (position < limit) {
+            return true;
+        }
+        try {
+            int read;
+            do {
+                read = in.read(buffer);
+            } while (read == 0);
+            position = 0;
+            limit = Math.max(read, 0);
+            return read > 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // move past whitespace to the start of the next token, returning false at end of input
+    private boolean skipSpace() {
+        while (fill()) {
+            while (position < limit && isSpace(buffer[position])) {
+                position++;
+            }
+            if (position < limit) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // return the next token, or null at end of input
+    String next() {
+        if (!skipSpace()) {
+            return null;
+        }
+
+        int length = 0;
+        while (true) {
+            int start = position;
+            while (position < limit && !isSpace(buffer[position])) {
+                position++;
+            }
+            if (length == 0 && position < limit) {
+                // the common case: the whole token is already in the buffer
+                return new String(buffer, start, position - start, StandardCharsets.UTF_8);
+            }
+
+            // the token may run past the buffer: gather it across refills
+            int chunk = position - start;
+            if (length + chunk > token.length) {
+                token = Arrays.copyOf(token, Math.max(2 * token.length, length + chunk));
+            }
+            System.arraycopy(buffer, start, token, length, chunk);
+            length += chunk;
+            if (position < limit || !fill()) {
+                return new String(token, 0, length, StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    // skip up to count tokens without decoding them, returning how many were skipped
+    long skip(long count) {
+        long skipped = 0;
+        while (skipped < count && skipSpace()) {
+            while (true) {
+                while (position < limit && !isSpace(buffer[position])) {
+                    position++;
+                }
+                if (position < limit || !fill()) {
+                    break;
+                }
+            }
+            skipped++;
+        }
+        return skipped;
+    }
+}
@@ -0,0 +1,225 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// a randomized queue for many producer and consumer threads: items are striped over shards,
+// each a swap-with-last array behind its own lock, so threads only contend when they land
+// on the same shard.
+//
+// uniformity: a dequeue picks a shard with probability proportional to the shard sizes it
+// reads, then an item uniformly within that shard, so when no other thread changes the queue
+// during the call every item is equally likely, exactly as in RandomizedQueue. Under
+// contention a dequeue that finds its shard locked or emptied steals from the next shard
+// instead of waiting, which skews the choice slightly toward items in uncontended shards;
+// only when every non-empty shard is locked does it block. Every item is still eventually
+// returned exactly once.
+public class ConcurrentRandomizedQueue<Item> {
+
+    private static final class Shard {
+        private final ReentrantLock lock = new ReentrantLock();
+        private Object[] items = new Object[2];
+        // written under the lock, read without it to weigh the shards
+        private volatile int size;
+    }
+
+    private final Shard[] shards;
+
+    // construct an empty queue with two shards per processor
+    public ConcurrentRandomizedQueue() {
+        this(2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    // construct an empty queue with the given number of shards
+    public ConcurrentRandomizedQueue(int shards) {
+        if (shards <= 0) {
+            throw new IllegalArgumentException("shards should be positive");
+        }
+        this.shards = new Shard[shards];
+        for (int i = 0; i < shards; i++) {
+            this.shards[i] = new Shard();
+        }
+    }
+
+    // is the queue empty? only a snapshot while other threads are active
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // return the number of items on the queue; only a snapshot while other threads are active
+    public int size() {
+        int total = 0;
+        for (Shard shard : shards) {
+            total += shard.size;
+        }
+        return total;
+    }
+
+    // add the item to a random shard, moving on to the next one while shards are locked
+    public void enqueue(Item item) {
+        if (item == null) {
+            throw new IllegalArgumentException("item should not be null");
+        }
+
+        int start = ThreadLocalRandom.current().nextInt(shards.length);
+        Shard shard = shards[start];
+        for (int i = 1; i < shards.length && !shard.lock.tryLock(); i++) {
+            shard = shards[(start + i) % shards.length];
+        }
+        if (!shard.lock.isHeldByCurrentThread()) {
+            shard.lock.lock();
+        }
+        try {
+            int n = shard.size;
+            if (n == shard.items.length) {
+                Object[] copy = new Object[2 * n];
+                System.arraycopy(shard.items, 0, copy, 0, n);
+                shard.items = copy;
+            }
+            shard.items[n] = item;
+            shard.size = n + 1;
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    // remove and return a random item, or null if the queue is empty
+    public Item poll() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (true) {
+            long total = 0;
+            for (Shard shard : shards) {
+                total += shard.size;
+            }
+            if (total == 0) {
+                return null;
+            }
+
+            // pick a shard weighted by its size; sizes may move under us, so stop at the last
+            long r = random.nextLong(total);
+            int start = 0;
+            while (start < shards.length - 1 && r >= shards[start].size) {
+                r -= shards[start].size;
+                start++;
+            }
+
+            // take from the chosen shard, or steal from the next one that is free and not empty
+            Shard contended = null;
+            for (int i = 0; i < shards.length; i++) {
+                Shard shard = shards[(start + i) % shards.length];
+                if (shard.size == 0) {
+                    continue;
+                }
+                if (!shard.lock.tryLock()) {
+                    if (contended == null) {
+                        contended = shard;
+                    }
+                    continue;
+                }
+                try {
+                    int n = shard.size;
+                    if (n > 0) {
+                        return take(shard, random.nextInt(n), n);
+                    }
+                } finally {
+                    shard.lock.unlock();
+                }
+            }
+
+            // every non-empty shard was locked: wait for the first of them rather than spin
+            if (contended != null) {
+                contended.lock.lock();
+                try {
+                    int n = contended.size;
+                    if (n > 0) {
+                        return take(contended, random.nextInt(n), n);
+                    }
+                } finally {
+                    contended.lock.unlock();
+                }
+            }
+        }
+    }
+
+    // swap the item at index with the last one and remove it; the shard lock must be held
+    @SuppressWarnings("unchecked")
+    private Item take(Shard shard, int index, int n) {
+        Item item = (Item) shard.items[index];
+        shard.items[index] = shard.items[n - 1];
+        shard.items[n - 1] = null;
+        shard.size = n - 1;
+        return item;
+    }
+
+    // remove and return a random item
+    public Item dequeue() {
+        Item item = poll();
+        if (item == null) {
+            throw new NoSuchElementException("the queue is empty");
+        }
+        return item;
+    }
+
+    // stress test: producers and consumers run at once, and every item must come out
+    // exactly once
+    public static void main(String[] args) throws InterruptedException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+
+        ConcurrentRandomizedQueue<Integer> queue = new ConcurrentRandomizedQueue<>();
+        AtomicIntegerArray taken = new AtomicIntegerArray(n);
+        AtomicLong total = new AtomicLong();
+        Thread[] workers = new Thread[2 * threads];
+        for (int w = 0; w < threads; w++) {
+            int id = w;
+            workers[w] = new Thread(() -> {
+                for (int i = id; i < n; i += threads) {
+                    queue.enqueue(i);
+                }
+            });
+            workers[threads + w] = new Thread(() -> {
+                while (total.get() < n) {
+                    Integer item = queue.poll();
+                    if (item != null) {
+                        taken.incrementAndGet(item);
+                        total.incrementAndGet();
+                    }
+                }
+            });
+        }
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        int lost = 0;
+        int duplicated = 0;
+        for (int i = 0; i < n; i++) {
+            if (taken.get(i) == 0) {
+                lost++;
+            } else if (taken.get(i) > 1) {
+                duplicated++;
+            }
+        }
+        System.out.println("items      = " + n);
+        System.out.println("taken      = " + total.get());
+        System.out.println("lost       = " + lost);
+        System.out.println("duplicated = " + duplicated);
+        System.out.println("empty      = " + queue.isEmpty());
+
+        // uniformity while quiescent: how often each of 10 items comes out first
+        int[] first = new int[10];
+        for (int trial = 0; trial < 100_000; trial++) {
+            ConcurrentRandomizedQueue<Integer> small = new ConcurrentRandomizedQueue<>(4);
+            for (int i = 0; i < first.length; i++) {
+                small.enqueue(i);
+            }
+            first[small.dequeue()]++;
+        }
+        System.out.println("first      = " + Arrays.toString(first));
+    }
+}
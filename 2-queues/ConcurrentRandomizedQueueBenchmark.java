@@ -0,0 +1,103 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ConcurrentRandomizedQueueBenchmark {
+    // measured rounds after the warmup rounds, per benchmark
+    private static final int WARMUP = 3;
+    private static final int ROUNDS = 5;
+
+    // the two operations of a randomized work pool
+    private interface WorkPool {
+        void put(Integer task);
+
+        Integer take();
+    }
+
+    // the single-threaded RandomizedQueue behind one lock
+    private static class LockedQueue implements WorkPool {
+        private final RandomizedQueue<Integer> queue = new RandomizedQueue<>();
+
+        public synchronized void put(Integer task) {
+            queue.enqueue(task);
+        }
+
+        public synchronized Integer take() {
+            return queue.isEmpty() ? null : queue.dequeue();
+        }
+    }
+
+    // the sharded queue
+    private static class ShardedQueue implements WorkPool {
+        private final ConcurrentRandomizedQueue<Integer> queue = new ConcurrentRandomizedQueue<>();
+
+        public void put(Integer task) {
+            queue.enqueue(task);
+        }
+
+        public Integer take() {
+            return queue.poll();
+        }
+    }
+
+    // every thread enqueues its share of the tasks, taking one back after every pair,
+    // then all threads drain the pool; returns elapsed nanoseconds
+    private static long run(WorkPool pool, Integer[] tasks, int threads) throws InterruptedException {
+        AtomicLong done = new AtomicLong();
+        Thread[] workers = new Thread[threads];
+        for (int w = 0; w < threads; w++) {
+            int id = w;
+            workers[w] = new Thread(() -> {
+                int pushed = 0;
+                for (int i = id; i < tasks.length; i += threads) {
+                    pool.put(tasks[i]);
+                    if ((++pushed & 1) == 0 && pool.take() != null) {
+                        done.incrementAndGet();
+                    }
+                }
+                while (done.get() < tasks.length) {
+                    if (pool.take() != null) {
+                        done.incrementAndGet();
+                    }
+                }
+            });
+        }
+
+        long start = System.nanoTime();
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return System.nanoTime() - start;
+    }
+
+    // usage: [tasks] [maxThreads]
+    public static void main(String[] args) throws InterruptedException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int maxThreads = args.length > 1
+                ? Integer.parseInt(args[1])
+                : Runtime.getRuntime().availableProcessors();
+
+        // box the tasks up front so allocation is not part of the measurement
+        Integer[] tasks = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            tasks[i] = i;
+        }
+
+        System.out.println("threads  locked(ms)  sharded(ms)  speedup");
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            long locked = Long.MAX_VALUE;
+            long sharded = Long.MAX_VALUE;
+            for (int round = 0; round < WARMUP + ROUNDS; round++) {
+                long l = run(new LockedQueue(), tasks, threads);
+                long s = run(new ShardedQueue(), tasks, threads);
+                if (round >= WARMUP) {
+                    locked = Math.min(locked, l);
+                    sharded = Math.min(sharded, s);
+                }
+            }
+            System.out.printf("%7d  %10.1f  %11.1f  %7.2f%n",
+                    threads, locked / 1e6, sharded / 1e6, (double) locked / sharded);
+        }
+    }
+}
@@ -1,3 +1,5 @@
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
@@ -16,18 +18,51 @@ public class Deque<Item> implements Iterable<Item> {
         tail = 1;
     }
 
-    // resize when the capacity is not enough to store one more item
-    private void resize(int capacity, int flag, boolean isFlagHead) {
+    // resize when the capacity is not enough to store one more item,
+    // moving the items in order to slots 1..size
+    private void resize(int capacity) {
         Item[] copy = (Item[]) new Object[capacity];
-        for (int i = 0; i < size; i++) {
-            copy[i + 1] = array[flag];
-            flag = isFlagHead ? nextTail(flag) : nextHead(flag);
-        }
+        copyTo(copy, 1, size);
         array = copy;
         head = 0;
         tail = size + 1;
     }
 
+    // copy the first count items, front to back, into dst starting at off;
+    // the items wrap around the ring at most once, so this is at most two array copies
+    private void copyTo(Object[] dst, int off, int count) {
+        int first = nextTail(head);
+        int firstRun = Math.min(count, array.length - first);
+        System.arraycopy(array, first, dst, off, firstRun);
+        System.arraycopy(array, 0, dst, off + firstRun, count - firstRun);
+    }
+
+    // grow, if needed, so that count more items fit with a slot to spare
+    private void ensureCapacity(int count) {
+        if (size + count >= array.length) {
+            int capacity = array.length;
+            while (size + count >= capacity) {
+                capacity *= 2;
+            }
+            resize(capacity);
+        }
+    }
+
+    // help make sure a bulk argument is a valid range of non-null items
+    private static void validateRange(Object[] items, int off, int len) {
+        if (items == null) {
+            throw new IllegalArgumentException("items should not be null");
+        }
+        if (off < 0 || len < 0 || off > items.length - len) {
+            throw new IllegalArgumentException("range outside the array");
+        }
+        for (int i = off; i < off + len; i++) {
+            if (items[i] == null) {
+                throw new IllegalArgumentException("item should not be null");
+            }
+        }
+    }
+
     // help determine the index of next head
     private int nextHead(int h) {
         return (h == 0) ? array.length - 1 : h - 1;
@@ -55,7 +90,7 @@ public class Deque<Item> implements Iterable<Item> {
         }
 
         if (size == array.length) {
-            resize(array.length * 2, nextTail(head), true);
+            resize(array.length * 2);
         } else if (array[head] != null) {
             head = nextHead(head);
         }
@@ -72,7 +107,7 @@ public class Deque<Item> implements Iterable<Item> {
         }
 
         if (size == array.length) {
-            resize(array.length * 2, nextHead(tail), false);
+            resize(array.length * 2);
         } else if (array[tail] != null) {
             tail = nextTail(tail);
         }
@@ -108,9 +143,90 @@ public class Deque<Item> implements Iterable<Item> {
         return last;
     }
 
+    // add items[off..off+len-1] to the back, in order
+    public void addAllLast(Item[] items, int off, int len) {
+        validateRange(items, off, len);
+        ensureCapacity(len);
+
+        int firstRun = Math.min(len, array.length - tail);
+        System.arraycopy(items, off, array, tail, firstRun);
+        System.arraycopy(items, off + firstRun, array, 0, len - firstRun);
+        tail = (tail + len) % array.length;
+        size += len;
+    }
+
+    // add items[off..off+len-1] to the front, keeping their order,
+    // so items[off] becomes the first item
+    public void addAllFirst(Item[] items, int off, int len) {
+        validateRange(items, off, len);
+        ensureCapacity(len);
+
+        // the block ends at head, so it starts len - 1 slots before it
+        int start = Math.floorMod(head - len + 1, array.length);
+        int firstRun = Math.min(len, array.length - start);
+        System.arraycopy(items, off, array, start, firstRun);
+        System.arraycopy(items, off + firstRun, array, 0, len - firstRun);
+        head = Math.floorMod(start - 1, array.length);
+        size += len;
+    }
+
+    // remove up to max items from the front into dst, starting at dst[0],
+    // and return how many were moved
+    public int drainTo(Item[] dst, int max) {
+        if (dst == null) {
+            throw new IllegalArgumentException("destination should not be null");
+        }
+        int count = Math.min(Math.min(max, dst.length), size);
+        if (count <= 0) {
+            return 0;
+        }
+
+        copyTo(dst, 0, count);
+        removeFront(count);
+        return count;
+    }
+
+    // remove up to max items from the front into the collection, in order,
+    // and return how many were moved
+    public int drainTo(Collection<? super Item> dst, int max) {
+        if (dst == null) {
+            throw new IllegalArgumentException("destination should not be null");
+        }
+        int count = Math.min(max, size);
+        if (count <= 0) {
+            return 0;
+        }
+
+        int current = nextTail(head);
+        for (int i = 0; i < count; i++) {
+            dst.add(array[current]);
+            current = nextTail(current);
+        }
+        removeFront(count);
+        return count;
+    }
+
+    // drop the first count items, clearing their slots with at most two fills
+    private void removeFront(int count) {
+        int first = nextTail(head);
+        int firstRun = Math.min(count, array.length - first);
+        Arrays.fill(array, first, first + firstRun, null);
+        Arrays.fill(array, 0, count - firstRun, null);
+        head = (head + count) % array.length;
+        size -= count;
+    }
+
+    // return the items in order from front to back
+    public Object[] toArray() {
+        Object[] items = new Object[size];
+        copyTo(items, 0, size);
+        return items;
+    }
+
     // an iterator over items in order from front to back
     private class DequeIterator implements Iterator<Item> {
-        private int current = head;
+        // head is the free slot before the front item
+        private int current = nextTail(head);
         private int remaining = size;
 
         public boolean hasNext() {
@@ -161,6 +277,16 @@ public class Deque<Item> implements Iterable<Item> {
         System.out.println(stringDeque.size());
         System.out.println(stringDeque.isEmpty());
 
+        // test bulk operations
+        System.out.println("===test bulk operations===");
+        stringDeque.addAllLast(new String[] {"c", "d", "e"}, 0, 3);
+        stringDeque.addAllFirst(new String[] {"a", "b"}, 0, 2);
+        System.out.println(Arrays.toString(stringDeque.toArray()));
+        String[] drained = new String[4];
+        System.out.println(stringDeque.drainTo(drained, 4));
+        System.out.println(Arrays.toString(drained));
+        System.out.println(stringDeque.size());
+
 /*
         System.out.println("===test on addFirst, removeFirst, isEmpty===");
         Deque<Integer> intDeque = new Deque<>();
@@ -0,0 +1,169 @@
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+public class IntDeque {
+
+    private int[] array;
+    private int size;
+    private int head;
+    private int tail;
+
+    // construct an empty deque; head and tail are the free slots just before
+    // the front and just after the back, and the capacity is always a power of two
+    public IntDeque() {
+        array = new int[8];
+        size = 0;
+        head = 0;
+        tail = 1;
+    }
+
+    // resize to the given power-of-two capacity, moving the items to slots 1..size
+    // with at most two array copies
+    private void resize(int capacity) {
+        int[] copy = new int[capacity];
+        int first = nextTail(head);
+        int firstRun = Math.min(size, array.length - first);
+        System.arraycopy(array, first, copy, 1, firstRun);
+        System.arraycopy(array, 0, copy, 1 + firstRun, size - firstRun);
+        array = copy;
+        head = 0;
+        tail = size + 1;
+    }
+
+    // help determine the index of next head
+    private int nextHead(int h) {
+        return (h - 1) & (array.length - 1);
+    }
+
+    // help determine the index of next tail
+    private int nextTail(int t) {
+        return (t + 1) & (array.length - 1);
+    }
+
+    // is the deque empty?
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // return the number of items on the deque
+    public int size() {
+        return size;
+    }
+
+    // add the item to the front
+    public void addFirst(int item) {
+        if (size == array.length - 1) {
+            resize(array.length * 2);
+        }
+
+        array[head] = item;
+        head = nextHead(head);
+        size++;
+    }
+
+    // add the item to the back
+    public void addLast(int item) {
+        if (size == array.length - 1) {
+            resize(array.length * 2);
+        }
+
+        array[tail] = item;
+        tail = nextTail(tail);
+        size++;
+    }
+
+    // remove and return the item from the front
+    public int removeFirst() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("deque is empty");
+        }
+
+        head = nextTail(head);
+        size--;
+        return array[head];
+    }
+
+    // remove and return the item from the back
+    public int removeLast() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("deque is empty");
+        }
+
+        tail = nextHead(tail);
+        size--;
+        return array[tail];
+    }
+
+    // perform the action on each item in order from front to back, without boxing
+    public void forEach(IntConsumer action) {
+        int current = nextTail(head);
+        for (int i = 0; i < size; i++) {
+            action.accept(array[current]);
+            current = nextTail(current);
+        }
+    }
+
+    // an iterator over items in order from front to back
+    private class IntDequeIterator implements PrimitiveIterator.OfInt {
+        private int current = nextTail(head);
+        private int remaining = size;
+
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("deque has no next item");
+            }
+            int item = array[current];
+            current = nextTail(current);
+            remaining--;
+            return item;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("not support remove() operation");
+        }
+    }
+
+    // return an iterator over items in order from front to back
+    public PrimitiveIterator.OfInt iterator() {
+        return new IntDequeIterator();
+    }
+
+    // unit testing
+    public static void main(String[] args) {
+        // test constructor
+        System.out.println("===test constructor===");
+        IntDeque deque = new IntDeque();
+        System.out.println(deque.size());
+        System.out.println(deque.isEmpty());
+
+        // test addFirst and addLast across several resizes
+        System.out.println("===test add item===");
+        for (int i = 0; i < 20; i++) {
+            deque.addFirst(-i);
+            deque.addLast(i);
+        }
+        System.out.println(deque.size());
+        System.out.println(deque.isEmpty());
+
+        // test iteration
+        System.out.println("===test iteration===");
+        StringBuilder items = new StringBuilder();
+        deque.forEach(item -> items.append(item).append(' '));
+        System.out.println(items);
+
+        // test removeFirst and removeLast
+        System.out.println("===test remove item===");
+        System.out.println(deque.removeFirst());
+        System.out.println(deque.removeLast());
+        while (!deque.isEmpty()) {
+            deque.removeLast();
+        }
+        System.out.println(deque.size());
+        System.out.println(deque.isEmpty());
+    }
+}
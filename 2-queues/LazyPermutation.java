@@ -0,0 +1,120 @@
+import java.util.NoSuchElementException;
+import java.util.random.RandomGenerator;
+
+// a random permutation of 0..n-1, drawn one element at a time by incremental Fisher-Yates.
+// the swaps are kept in a sparse open-addressing map, so drawing k elements costs O(k) time
+// and space; once the map would outgrow a plain int[n], it is materialized into one
+class LazyPermutation {
+    private final int n;
+    private final RandomGenerator random;
+    private int drawn;
+
+    // sparse form: keys hold position + 1, so 0 marks an empty slot
+    private int[] keys;
+    private int[] values;
+    private int entries;
+
+    // dense form, once materialized
+    private int[] dense;
+
+    LazyPermutation(int n, RandomGenerator random) {
+        this.n = n;
+        this.random = random;
+        this.keys = new int[16];
+        this.values = new int[16];
+    }
+
+    // are there elements left to draw?
+    boolean hasNext() {
+        return drawn < n;
+    }
+
+    // draw the next element: swap a random position of the undrawn suffix to the front of it
+    int next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("permutation is exhausted");
+        }
+        int j = drawn + random.nextInt(n - drawn);
+        int chosen = get(j);
+        // position drawn is never read again, so only j needs its new value
+        put(j, get(drawn));
+        drawn++;
+        return chosen;
+    }
+
+    // the element currently at position p; untouched positions hold themselves
+    private int get(int p) {
+        if (dense != null) {
+            return dense[p];
+        }
+        int mask = keys.length - 1;
+        for (int i = mix(p) & mask; keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == p + 1) {
+                return values[i];
+            }
+        }
+        return p;
+    }
+
+    // set the element at position p
+    private void put(int p, int v) {
+        if (dense != null) {
+            dense[p] = v;
+            return;
+        }
+        int mask = keys.length - 1;
+        int i = mix(p) & mask;
+        while (keys[i] != 0 && keys[i] != p + 1) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == 0) {
+            keys[i] = p + 1;
+            entries++;
+        }
+        values[i] = v;
+
+        if (entries > n / 4) {
+            materialize();
+        } else if (2 * entries > keys.length) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    // spread position bits so runs of nearby positions do not cluster
+    private static int mix(int p) {
+        int h = p * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[capacity];
+        values = new int[capacity];
+        int mask = capacity - 1;
+        for (int k = 0; k < oldKeys.length; k++) {
+            if (oldKeys[k] != 0) {
+                int i = mix(oldKeys[k] - 1) & mask;
+                while (keys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[k];
+                values[i] = oldValues[k];
+            }
+        }
+    }
+
+    private void materialize() {
+        dense = new int[n];
+        for (int p = 0; p < n; p++) {
+            dense[p] = p;
+        }
+        for (int k = 0; k < keys.length; k++) {
+            if (keys[k] != 0) {
+                dense[keys[k] - 1] = values[k];
+            }
+        }
+        keys = null;
+        values = null;
+    }
+}
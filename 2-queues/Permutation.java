@@ -1,14 +1,17 @@
 import edu.princeton.cs.algs4.StdIn;
 import edu.princeton.cs.algs4.StdOut;
 
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
 public class Permutation {
 
     private final RandomizedQueue<String> randomizedQueue;
     private final int k;
 
-    private Permutation(int k) {
+    private Permutation(int k, RandomizedQueue<String> randomizedQueue) {
         this.k = k;
-        randomizedQueue = new RandomizedQueue<>();
+        this.randomizedQueue = randomizedQueue;
 
         // Read all strings into the randomizedQueue
         while (!StdIn.isEmpty()) {
@@ -16,6 +19,52 @@ public class Permutation {
         }
     }
 
+    // keep only a uniform sample of k strings from the stream, so memory is O(k)
+    // however long the input is
+    private Permutation(int k, RandomizedQueue<String> randomizedQueue, ByteTokenizer tokens,
+                        RandomGenerator random) {
+        this.randomizedQueue = randomizedQueue;
+
+        for (String sample : reservoir(tokens, k, random)) {
+            if (sample != null) {
+                randomizedQueue.enqueue(sample);
+            }
+        }
+        // a stream shorter than k yields all of its strings
+        this.k = randomizedQueue.size();
+    }
+
+    // Li's Algorithm L: fill the reservoir, then jump straight to the next token that
+    // replaces a reservoir entry, skipping the ones in between without decoding them
+    private static String[] reservoir(ByteTokenizer tokens, int k, RandomGenerator random) {
+        String[] reservoir = new String[k];
+        for (int i = 0; i < k; i++) {
+            reservoir[i] = tokens.next();
+            if (reservoir[i] == null) {
+                return reservoir;
+            }
+        }
+        if (k == 0) {
+            return reservoir;
+        }
+
+        // u is drawn from (0, 1] so its logarithm is finite
+        double w = Math.exp(Math.log(1.0 - random.nextDouble()) / k);
+        while (true) {
+            double gap = Math.floor(Math.log(1.0 - random.nextDouble()) / Math.log(1.0 - w));
+            long skip = gap >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) gap;
+            if (tokens.skip(skip) < skip) {
+                return reservoir;
+            }
+            String next = tokens.next();
+            if (next == null) {
+                return reservoir;
+            }
+            reservoir[random.nextInt(k)] = next;
+            w *= Math.exp(Math.log(1.0 - random.nextDouble()) / k);
+        }
+    }
+
     private void printRandomStrings() {
         // Print k strings from the randomizedQueue
         for (int i = 0; i < k; i++) {
@@ -24,12 +73,25 @@ public class Permutation {
     }
 
     public static void main(String[] args) {
-        if (args.length != 1) {
-            throw new IllegalArgumentException("Usage: java Permutation k");
+        boolean stream = args.length > 0 && args[0].equals("--stream");
+        int first = stream ? 1 : 0;
+        if (args.length - first != 1 && args.length - first != 2) {
+            throw new IllegalArgumentException("Usage: java Permutation [--stream] k [seed]");
+        }
+
+        int k = Integer.parseInt(args[first]);
+        if (k < 0) {
+            throw new IllegalArgumentException("Usage: java Permutation [--stream] k [seed]");
         }
+        RandomGeneratorFactory<RandomGenerator> factory = RandomGeneratorFactory.of("L64X128MixRandom");
+        RandomGenerator random = args.length - first == 2
+                ? factory.create(Long.parseLong(args[first + 1]))
+                : factory.create();
+        RandomizedQueue<String> queue = new RandomizedQueue<>(random);
 
-        int k = Integer.parseInt(args[0]);
-        Permutation permutation = new Permutation(k);
+        Permutation permutation = stream
+                ? new Permutation(k, queue, new ByteTokenizer(System.in), random)
+                : new Permutation(k, queue);
         permutation.printRandomStrings();
     }
 }
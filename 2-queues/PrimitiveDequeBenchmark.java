@@ -0,0 +1,98 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+
+public class PrimitiveDequeBenchmark {
+    // measured rounds after the warmup rounds, per benchmark
+    private static final int WARMUP = 3;
+    private static final int ROUNDS = 5;
+
+    // allocation counter for the current thread, when the JVM provides one
+    private static final com.sun.management.ThreadMXBean THREADS =
+            ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean
+                    ? (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()
+                    : null;
+
+    // bytes allocated so far by the current thread, or 0 if unknown
+    private static long allocated() {
+        return THREADS == null ? 0 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    // one workload over one queue type: fill with n timestamps, sum them by iteration,
+    // then drain from the front; returns a checksum so the work cannot be optimized away
+    private interface Workload {
+        long run(int n);
+    }
+
+    private static long primitive(int n) {
+        LongDeque deque = new LongDeque();
+        for (long i = 0; i < n; i++) {
+            deque.addLast(i);
+        }
+        long[] sum = new long[1];
+        deque.forEach(timestamp -> sum[0] += timestamp);
+        while (!deque.isEmpty()) {
+            sum[0] ^= deque.removeFirst();
+        }
+        return sum[0];
+    }
+
+    private static long boxed(int n) {
+        Deque<Long> deque = new Deque<>();
+        for (long i = 0; i < n; i++) {
+            deque.addLast(i);
+        }
+        long sum = 0;
+        for (long timestamp : deque) {
+            sum += timestamp;
+        }
+        while (!deque.isEmpty()) {
+            sum ^= deque.removeFirst();
+        }
+        return sum;
+    }
+
+    private static long arrayDeque(int n) {
+        ArrayDeque<Long> deque = new ArrayDeque<>();
+        for (long i = 0; i < n; i++) {
+            deque.addLast(i);
+        }
+        long sum = 0;
+        for (long timestamp : deque) {
+            sum += timestamp;
+        }
+        while (!deque.isEmpty()) {
+            sum ^= deque.removeFirst();
+        }
+        return sum;
+    }
+
+    // time the workload, reporting the best round and the bytes allocated per item
+    private static void bench(String name, int n, Workload workload) {
+        long best = Long.MAX_VALUE;
+        long bytes = 0;
+        long sink = 0;
+        for (int round = 0; round < WARMUP + ROUNDS; round++) {
+            long before = allocated();
+            long start = System.nanoTime();
+            sink += workload.run(n);
+            long elapsed = System.nanoTime() - start;
+            if (round >= WARMUP) {
+                best = Math.min(best, elapsed);
+                bytes = allocated() - before;
+            }
+        }
+        System.out.printf("%-22s n=%-10d %10.2f ms  %8.2f ns/item  %8.2f B/item%n",
+                name, n, best / 1e6, (double) best / n, (double) bytes / n);
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    // usage: [n], default 10000000
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        bench("LongDeque", n, PrimitiveDequeBenchmark::primitive);
+        bench("Deque<Long>", n, PrimitiveDequeBenchmark::boxed);
+        bench("ArrayDeque<Long>", n, PrimitiveDequeBenchmark::arrayDeque);
+    }
+}
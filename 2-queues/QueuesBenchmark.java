@@ -0,0 +1,273 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+public class QueuesBenchmark {
+    // measured rounds after the warmup rounds, per benchmark
+    private static final int WARMUP = 3;
+    private static final int ROUNDS = 5;
+    // small sizes repeat their workload until a round does at least this many operations
+    private static final long MIN_OPS_PER_ROUND = 1_000_000;
+
+    // allocation counter for the current thread, when the JVM provides one
+    private static final com.sun.management.ThreadMXBean THREADS =
+            ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean
+                    ? (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()
+                    : null;
+
+    // bytes allocated so far by the current thread, or 0 if unknown
+    private static long allocated() {
+        return THREADS == null ? 0 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    // one run of a workload; returns a checksum so the work cannot be optimized away
+    private interface Workload {
+        long run();
+    }
+
+    // the measurements of one benchmark
+    private static final class Result {
+        private final String benchmark;
+        private final String implementation;
+        private final int size;
+        private final double nanosPerOp;
+        private final double bytesPerOp;
+
+        Result(String benchmark, String implementation, int size, double nanosPerOp, double bytesPerOp) {
+            this.benchmark = benchmark;
+            this.implementation = implementation;
+            this.size = size;
+            this.nanosPerOp = nanosPerOp;
+            this.bytesPerOp = bytesPerOp;
+        }
+
+        String toJson() {
+            return String.format(Locale.ROOT,
+                    "{\"benchmark\": \"%s\", \"implementation\": \"%s\", \"size\": %d, "
+                            + "\"nsPerOp\": %.3f, \"bytesPerOp\": %.3f}",
+                    benchmark, implementation, size, nanosPerOp, bytesPerOp);
+        }
+    }
+
+    private final List<Result> results = new ArrayList<>();
+    private long sink;
+
+    // time a workload of opsPerRun operations at size n, repeated so small sizes are measurable
+    private void bench(String benchmark, String implementation, int n, long opsPerRun, Workload workload) {
+        bench(benchmark, implementation, n, opsPerRun, opsPerRun, workload);
+    }
+
+    // as above, for a workload whose operations are not O(1): workPerRun sets the repetitions
+    private void bench(String benchmark, String implementation, int n, long opsPerRun, long workPerRun,
+                       Workload workload) {
+        long reps = Math.max(1, MIN_OPS_PER_ROUND / workPerRun);
+        long nanos = 0;
+        long bytes = 0;
+        for (int round = 0; round < WARMUP + ROUNDS; round++) {
+            long before = allocated();
+            long start = System.nanoTime();
+            for (long r = 0; r < reps; r++) {
+                sink += workload.run();
+            }
+            if (round >= WARMUP) {
+                nanos += System.nanoTime() - start;
+                bytes += allocated() - before;
+            }
+        }
+
+        double ops = (double) opsPerRun * reps * ROUNDS;
+        Result result = new Result(benchmark, implementation, n, nanos / ops, bytes / ops);
+        results.add(result);
+        System.out.printf(Locale.ROOT, "%-10s %-18s n=%-10d %10.2f ns/op %10.2f B/op%n",
+                benchmark, implementation, n, result.nanosPerOp, result.bytesPerOp);
+    }
+
+    // random ends for the mixed workload: bit 0 picks the end to add at, bit 1 the end to remove at
+    private static byte[] ends(int count) {
+        SplittableRandom random = new SplittableRandom(1);
+        byte[] ends = new byte[count];
+        for (int i = 0; i < count; i++) {
+            ends[i] = (byte) random.nextInt(4);
+        }
+        return ends;
+    }
+
+    // Deque against ArrayDeque: a mix of adds and removes at random ends around size n,
+    // growth from empty to n, and iteration over n items
+    private void benchDeques(int n, Integer[] items) {
+        byte[] ends = ends(n);
+
+        Deque<Integer> deque = new Deque<>();
+        ArrayDeque<Integer> arrayDeque = new ArrayDeque<>();
+        for (int i = 0; i < n; i++) {
+            deque.addLast(items[i]);
+            arrayDeque.addLast(items[i]);
+        }
+
+        bench("mixed", "Deque", n, 2L * n, () -> {
+            long sum = 0;
+            for (int i = 0; i < n; i++) {
+                if ((ends[i] & 1) == 0) {
+                    deque.addFirst(items[i]);
+                } else {
+                    deque.addLast(items[i]);
+                }
+                sum += (ends[i] & 2) == 0 ? deque.removeFirst() : deque.removeLast();
+            }
+            return sum;
+        });
+        bench("mixed", "ArrayDeque", n, 2L * n, () -> {
+            long sum = 0;
+            for (int i = 0; i < n; i++) {
+                if ((ends[i] & 1) == 0) {
+                    arrayDeque.addFirst(items[i]);
+                } else {
+                    arrayDeque.addLast(items[i]);
+                }
+                sum += (ends[i] & 2) == 0 ? arrayDeque.removeFirst() : arrayDeque.removeLast();
+            }
+            return sum;
+        });
+
+        bench("growth", "Deque", n, n, () -> {
+            Deque<Integer> fresh = new Deque<>();
+            for (int i = 0; i < n; i++) {
+                fresh.addLast(items[i]);
+            }
+            return fresh.size();
+        });
+        bench("growth", "ArrayDeque", n, n, () -> {
+            ArrayDeque<Integer> fresh = new ArrayDeque<>();
+            for (int i = 0; i < n; i++) {
+                fresh.addLast(items[i]);
+            }
+            return fresh.size();
+        });
+
+        bench("iterate", "Deque", n, n, () -> {
+            long sum = 0;
+            for (int item : deque) {
+                sum += item;
+            }
+            return sum;
+        });
+        bench("iterate", "ArrayDeque", n, n, () -> {
+            long sum = 0;
+            for (int item : arrayDeque) {
+                sum += item;
+            }
+            return sum;
+        });
+    }
+
+    // RandomizedQueue against an ArrayList that is shuffled: filling and dequeuing everything,
+    // sampling, and creating an iterator to read its first item
+    private void benchRandomizedQueues(int n, Integer[] items) {
+        SplittableRandom random = new SplittableRandom(2);
+
+        bench("dequeue", "RandomizedQueue", n, 2L * n, () -> {
+            RandomizedQueue<Integer> queue = new RandomizedQueue<>(3);
+            for (int i = 0; i < n; i++) {
+                queue.enqueue(items[i]);
+            }
+            long sum = 0;
+            while (!queue.isEmpty()) {
+                sum = 31 * sum + queue.dequeue();
+            }
+            return sum;
+        });
+        bench("dequeue", "ArrayList+shuffle", n, 2L * n, () -> {
+            ArrayList<Integer> list = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                list.add(items[i]);
+            }
+            Collections.shuffle(list, new Random(3));
+            long sum = 0;
+            while (!list.isEmpty()) {
+                sum = 31 * sum + list.remove(list.size() - 1);
+            }
+            return sum;
+        });
+
+        RandomizedQueue<Integer> queue = new RandomizedQueue<>(4);
+        ArrayList<Integer> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            queue.enqueue(items[i]);
+            list.add(items[i]);
+        }
+        int samples = (int) Math.min(n, MIN_OPS_PER_ROUND);
+        bench("sample", "RandomizedQueue", n, samples, () -> {
+            long sum = 0;
+            for (int i = 0; i < samples; i++) {
+                sum += queue.sample();
+            }
+            return sum;
+        });
+        bench("sample", "ArrayList", n, samples, () -> {
+            long sum = 0;
+            for (int i = 0; i < samples; i++) {
+                sum += list.get(random.nextInt(list.size()));
+            }
+            return sum;
+        });
+
+        // a shuffled copy is what an ArrayList needs for an independent random-order iterator
+        bench("iterator", "RandomizedQueue", n, 1, n, () -> {
+            Iterator<Integer> iterator = queue.iterator();
+            return iterator.next();
+        });
+        bench("iterator", "ArrayList+shuffle", n, 1, n, () -> {
+            ArrayList<Integer> copy = new ArrayList<>(list);
+            Collections.shuffle(copy, new Random(5));
+            return copy.iterator().next();
+        });
+    }
+
+    // write every result as a JSON array
+    private void writeJson(PrintStream out) {
+        out.println("[");
+        for (int i = 0; i < results.size(); i++) {
+            out.println("  " + results.get(i).toJson() + (i < results.size() - 1 ? "," : ""));
+        }
+        out.println("]");
+    }
+
+    // usage: [maxSize] [json-file]; sizes run in powers of ten from 10, default up to 10^6.
+    // 10^8 needs a heap of several GB, for the boxed items and both structures
+    public static void main(String[] args) throws IOException {
+        int maxSize = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Path json = args.length > 1 ? Path.of(args[1]) : null;
+
+        QueuesBenchmark benchmark = new QueuesBenchmark();
+        for (int n = 10; n <= maxSize && n > 0; n *= 10) {
+            // box the items up front so allocation is not part of the measurement
+            Integer[] items = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                items[i] = i;
+            }
+            benchmark.benchDeques(n, items);
+            benchmark.benchRandomizedQueues(n, items);
+        }
+
+        if (json == null) {
+            benchmark.writeJson(System.out);
+        } else {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(json))) {
+                benchmark.writeJson(out);
+            }
+        }
+        if (benchmark.sink == 42) {
+            System.out.println();
+        }
+    }
+}
@@ -1,17 +1,40 @@
-import edu.princeton.cs.algs4.StdRandom;
-
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
 
 public class RandomizedQueue<Item> implements Iterable<Item> {
 
+    // a fast, unsynchronized generator, so queues on different threads never contend
+    private static final String DEFAULT_ALGORITHM = "L64X128MixRandom";
+
     private Item[] s;
     private int size;
+    private int modCount;
+    private final RandomGenerator random;
+    // positions swapped by the last batch sample, kept so the swaps can be undone
+    private int[] swaps = new int[0];
 
     // construct an empty randomized queue
     public RandomizedQueue() {
+        this(RandomGeneratorFactory.of(DEFAULT_ALGORITHM).create());
+    }
+
+    // construct an empty randomized queue whose random choices are fixed by the seed
+    public RandomizedQueue(long seed) {
+        this(RandomGeneratorFactory.of(DEFAULT_ALGORITHM).create(seed));
+    }
+
+    // construct an empty randomized queue drawing from the given generator
+    public RandomizedQueue(RandomGenerator random) {
+        if (random == null) {
+            throw new IllegalArgumentException("random should not be null");
+        }
         s = (Item[]) new Object[2];
         size = 0;
+        this.random = random;
     }
 
     // resize when the capacity is not enough to store one more item
@@ -40,6 +63,7 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
             resize(s.length * 2);
         }
         s[size++] = item;
+        modCount++;
     }
 
     // remove and return a random item
@@ -47,11 +71,12 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         if (isEmpty()) {
             throw new NoSuchElementException("the queue is empty");
         }
-        int randomIndex = StdRandom.uniformInt(size);
+        int randomIndex = random.nextInt(size);
         Item itemToRemove = s[randomIndex];
         s[randomIndex] = s[size - 1];
         s[size - 1] = null;
         size--;
+        modCount++;
 
         return itemToRemove;
     }
@@ -61,30 +86,90 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         if (isEmpty()) {
             throw new NoSuchElementException("the queue is empty");
         }
-        return s[StdRandom.uniformInt(size)];
+        return s[random.nextInt(size)];
+    }
+
+    // help make sure a batch of k distinct items can be drawn into dst
+    private void validateBatch(int k, Item[] dst) {
+        if (dst == null) {
+            throw new IllegalArgumentException("destination should not be null");
+        }
+        if (k < 0 || k > size) {
+            throw new IllegalArgumentException("k should be between 0 and the size");
+        }
+        if (k > dst.length) {
+            throw new IllegalArgumentException("destination is shorter than k");
+        }
     }
 
-    // an iterator over items in random order
+    // partial Fisher-Yates: move k random items, one at a time, to the back of the array,
+    // copying each into dst; returns the first position of the drawn block
+    private int drawToBack(int k, Item[] dst, int[] swapped) {
+        for (int i = 0; i < k; i++) {
+            int last = size - 1 - i;
+            int j = random.nextInt(last + 1);
+            if (swapped != null) {
+                swapped[i] = j;
+            }
+            Item item = s[j];
+            s[j] = s[last];
+            s[last] = item;
+            dst[i] = item;
+        }
+        return size - k;
+    }
+
+    // copy k distinct random items into dst[0..k-1] (but do not remove them),
+    // in O(k) time with no allocation once the undo buffer has grown to k
+    public void sample(int k, Item[] dst) {
+        validateBatch(k, dst);
+        if (swaps.length < k) {
+            swaps = new int[Math.max(k, 2 * swaps.length)];
+        }
+        drawToBack(k, dst, swaps);
+
+        // undo the swaps in reverse, so the array (and any iterator over it) is unchanged
+        for (int i = k - 1; i >= 0; i--) {
+            int last = size - 1 - i;
+            int j = swaps[i];
+            Item item = s[j];
+            s[j] = s[last];
+            s[last] = item;
+        }
+    }
+
+    // remove k distinct random items into dst[0..k-1], in O(k) time and no extra space
+    public void dequeue(int k, Item[] dst) {
+        validateBatch(k, dst);
+        int start = drawToBack(k, dst, null);
+        Arrays.fill(s, start, size, null);
+        size = start;
+        modCount++;
+    }
+
+    // an iterator over items in random order; it draws a lazy permutation of the indices
+    // one step per next(), so creating it is O(1) and reading k items costs O(k)
     private class RandomizedQueueIterator implements Iterator<Item> {
-        private final Item[] shuffledArray;
-        private int index;
+        private final LazyPermutation order;
+        private final int expectedModCount;
 
         public RandomizedQueueIterator() {
-            shuffledArray = (Item[]) new Object[size];
-            System.arraycopy(s, 0, shuffledArray, 0, size);
-            StdRandom.shuffle(shuffledArray);
-            index = 0;
+            order = new LazyPermutation(size, random);
+            expectedModCount = modCount;
         }
 
         public boolean hasNext() {
-            return index < size;
+            return order.hasNext();
         }
 
         public Item next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException("queue changed during iteration");
+            }
             if (!hasNext()) {
                 throw new NoSuchElementException("No more elements");
             }
-            return shuffledArray[index++];
+            return s[order.next()];
         }
 
         public void remove() {
@@ -92,7 +177,8 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         }
     }
 
-    // return an independent iterator over items in random order
+    // return an independent iterator over items in random order;
+    // the queue must not be changed while it is in use
     public Iterator<Item> iterator() {
         return new RandomizedQueueIterator();
     }
@@ -128,5 +214,12 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
             System.out.println(randomQ.sample());
         }
         System.out.println(randomQ.size());
+
+        // test batch sample and dequeue
+        Integer[] batch = new Integer[4];
+        randomQ.sample(4, batch);
+        System.out.println(Arrays.toString(batch) + " " + randomQ.size());
+        randomQ.dequeue(4, batch);
+        System.out.println(Arrays.toString(batch) + " " + randomQ.size());
     }
 }
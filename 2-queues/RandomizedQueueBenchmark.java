@@ -0,0 +1,88 @@
+import edu.princeton.cs.algs4.StdRandom;
+
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+public class RandomizedQueueBenchmark {
+    // measured rounds after the warmup rounds, per benchmark
+    private static final int WARMUP = 3;
+    private static final int ROUNDS = 5;
+
+    // the previous behaviour: every draw goes through algs4's global, synchronized StdRandom
+    private static final class StdRandomGenerator implements RandomGenerator {
+        // 63 random bits plus one more for the sign
+        public long nextLong() {
+            return (StdRandom.uniformLong(Long.MAX_VALUE) << 1) | StdRandom.uniformInt(2);
+        }
+
+        public int nextInt(int bound) {
+            return StdRandom.uniformInt(bound);
+        }
+    }
+
+    // fill a queue with n items and dequeue them all; returns a checksum
+    private static long fillAndDrain(RandomizedQueue<Integer> queue, Integer[] items) {
+        for (Integer item : items) {
+            queue.enqueue(item);
+        }
+        long sum = 0;
+        while (!queue.isEmpty()) {
+            sum = 31 * sum + queue.dequeue();
+        }
+        return sum;
+    }
+
+    // run fillAndDrain on one queue per thread, all at once; returns elapsed nanoseconds
+    private static long run(Supplier<RandomizedQueue<Integer>> queues, Integer[] items, int threads)
+            throws InterruptedException {
+        Thread[] workers = new Thread[threads];
+        long[] sinks = new long[threads];
+        for (int w = 0; w < threads; w++) {
+            int id = w;
+            RandomizedQueue<Integer> queue = queues.get();
+            workers[w] = new Thread(() -> sinks[id] = fillAndDrain(queue, items));
+        }
+
+        long start = System.nanoTime();
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return System.nanoTime() - start;
+    }
+
+    // report dequeues per second for the best round
+    private static void bench(String name, Supplier<RandomizedQueue<Integer>> queues, Integer[] items,
+                              int threads) throws InterruptedException {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < WARMUP + ROUNDS; round++) {
+            long elapsed = run(queues, items, threads);
+            if (round >= WARMUP) {
+                best = Math.min(best, elapsed);
+            }
+        }
+        System.out.printf("%-16s threads=%-3d %14.0f dequeues/s%n",
+                name, threads, (double) items.length * threads * 1e9 / best);
+    }
+
+    // usage: [n] [maxThreads]
+    public static void main(String[] args) throws InterruptedException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int maxThreads = args.length > 1
+                ? Integer.parseInt(args[1])
+                : Runtime.getRuntime().availableProcessors();
+
+        // box the items up front so allocation is not part of the measurement
+        Integer[] items = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            items[i] = i;
+        }
+
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            bench("StdRandom", () -> new RandomizedQueue<>(new StdRandomGenerator()), items, threads);
+            bench("L64X128MixRandom", RandomizedQueue::new, items, threads);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// a deque over a linked list of fixed-size blocks: growing links a block at either end and
+// shrinking unlinks one, so no operation ever copies the items, and memory is given back
+// as the deque empties
+public class SegmentedDeque<Item> implements Iterable<Item> {
+
+    private static final int BLOCK_SIZE = 256;
+    // empty blocks kept for reuse, so a deque hovering around a block boundary does not churn
+    private static final int POOL_SIZE = 2;
+
+    private static final class Block {
+        private final Object[] items = new Object[BLOCK_SIZE];
+        private Block prev;
+        private Block next;
+    }
+
+    private Block headBlock;
+    private Block tailBlock;
+    // headIndex is the slot of the front item in headBlock,
+    // tailIndex the slot just past the back item in tailBlock
+    private int headIndex;
+    private int tailIndex;
+    private int size;
+    private int blocks;
+
+    private final Block[] pool = new Block[POOL_SIZE];
+    private int pooled;
+
+    // construct an empty deque
+    public SegmentedDeque() {
+        headBlock = obtain();
+        tailBlock = headBlock;
+        recenter();
+    }
+
+    // start an empty deque in the middle of its only block, so either end can grow
+    private void recenter() {
+        headIndex = BLOCK_SIZE / 2;
+        tailIndex = BLOCK_SIZE / 2;
+    }
+
+    // take a block from the pool, or allocate one
+    private Block obtain() {
+        blocks++;
+        if (pooled > 0) {
+            Block block = pool[--pooled];
+            pool[pooled] = null;
+            return block;
+        }
+        return new Block();
+    }
+
+    // give an emptied block back to the pool, or to the garbage collector if the pool is full
+    private void release(Block block) {
+        blocks--;
+        block.prev = null;
+        block.next = null;
+        if (pooled < POOL_SIZE) {
+            pool[pooled++] = block;
+        }
+    }
+
+    // is the deque empty?
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // return the number of items on the deque
+    public int size() {
+        return size;
+    }
+
+    // return the number of item slots currently allocated, including pooled blocks
+    public long footprint() {
+        return (long) (blocks + pooled) * BLOCK_SIZE;
+    }
+
+    // add the item to the front
+    public void addFirst(Item item) {
+        if (item == null) {
+            throw new IllegalArgumentException("item should not be null");
+        }
+
+        if (headIndex == 0) {
+            Block block = obtain();
+            block.next = headBlock;
+            headBlock.prev = block;
+            headBlock = block;
+            headIndex = BLOCK_SIZE;
+        }
+        headBlock.items[--headIndex] = item;
+        size++;
+    }
+
+    // add the item to the back
+    public void addLast(Item item) {
+        if (item == null) {
+            throw new IllegalArgumentException("item should not be null");
+        }
+
+        if (tailIndex == BLOCK_SIZE) {
+            Block block = obtain();
+            block.prev = tailBlock;
+            tailBlock.next = block;
+            tailBlock = block;
+            tailIndex = 0;
+        }
+        tailBlock.items[tailIndex++] = item;
+        size++;
+    }
+
+    // remove and return the item from the front
+    public Item removeFirst() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("deque is empty");
+        }
+
+        @SuppressWarnings("unchecked")
+        Item first = (Item) headBlock.items[headIndex];
+        headBlock.items[headIndex++] = null;
+        size--;
+
+        if (size == 0) {
+            recenter();
+        } else if (headIndex == BLOCK_SIZE) {
+            Block emptied = headBlock;
+            headBlock = headBlock.next;
+            headBlock.prev = null;
+            headIndex = 0;
+            release(emptied);
+        }
+        return first;
+    }
+
+    // remove and return the item from the back
+    public Item removeLast() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("deque is empty");
+        }
+
+        @SuppressWarnings("unchecked")
+        Item last = (Item) tailBlock.items[--tailIndex];
+        tailBlock.items[tailIndex] = null;
+        size--;
+
+        if (size == 0) {
+            recenter();
+        } else if (tailIndex == 0) {
+            Block emptied = tailBlock;
+            tailBlock = tailBlock.prev;
+            tailBlock.next = null;
+            tailIndex = BLOCK_SIZE;
+            release(emptied);
+        }
+        return last;
+    }
+
+    // an iterator over items in order from front to back
+    private class SegmentedDequeIterator implements Iterator<Item> {
+        private Block block = headBlock;
+        private int index = headIndex;
+        private int remaining = size;
+
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        public Item next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("deque has no next item");
+            }
+            if (index == BLOCK_SIZE) {
+                block = block.next;
+                index = 0;
+            }
+            remaining--;
+            return (Item) block.items[index++];
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("not support remove() operation");
+        }
+    }
+
+    // return an iterator over items in order from front to back
+    public Iterator<Item> iterator() {
+        return new SegmentedDequeIterator();
+    }
+
+    // unit testing: a burst of items, then draining, reporting the footprint along the way
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        SegmentedDeque<Integer> deque = new SegmentedDeque<>();
+        System.out.println("empty footprint   = " + deque.footprint());
+
+        for (int i = 0; i < n; i++) {
+            if (i % 2 == 0) {
+                deque.addLast(i);
+            } else {
+                deque.addFirst(i);
+            }
+        }
+        System.out.println("size              = " + deque.size());
+        System.out.println("burst footprint   = " + deque.footprint());
+
+        while (deque.size() > 10) {
+            deque.removeFirst();
+        }
+        System.out.println("size              = " + deque.size());
+        System.out.println("drained footprint = " + deque.footprint());
+        for (int item : deque) {
+            System.out.print(item + " ");
+        }
+        System.out.println();
+    }
+}
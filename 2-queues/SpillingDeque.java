@@ -0,0 +1,440 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// a deque that can grow past the heap: items live in fixed-size segments, and once more
+// segments are in memory than the budget allows, the ones nearest the middle are serialized
+// to memory-mapped files on disk. The segments always form three runs, front to back:
+// in-memory segments at the head, spilled segments in the middle, in-memory segments at
+// the tail, so the ends stay in memory and a spilled segment is only read back when a
+// removal reaches it.
+public class SpillingDeque<Item> implements Iterable<Item>, AutoCloseable {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    // turns items into bytes and back, for the segments that are spilled
+    public interface Codec<Item> {
+        byte[] encode(Item item);
+
+        Item decode(byte[] bytes);
+    }
+
+    // a codec for strings, as UTF-8
+    public static final Codec<String> UTF8 = new Codec<>() {
+        public byte[] encode(String item) {
+            return item.getBytes(StandardCharsets.UTF_8);
+        }
+
+        public String decode(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    // an in-memory segment; start is the slot of its first item, end the slot past its last
+    private static final class Segment {
+        private final Object[] items;
+        private int start;
+        private int end;
+
+        Segment(Object[] items, int start, int end) {
+            this.items = items;
+            this.start = start;
+            this.end = end;
+        }
+
+        int count() {
+            return end - start;
+        }
+    }
+
+    // a segment written out to its own file
+    private static final class Spilled {
+        private final Path file;
+        private final int count;
+
+        Spilled(Path file, int count) {
+            this.file = file;
+            this.count = count;
+        }
+    }
+
+    private final Codec<Item> codec;
+    private final int maxSegments;
+    private final Path directory;
+    // whether the deque created the directory, and so may delete it on close
+    private final boolean ownsDirectory;
+    private final ArrayDeque<Segment> headRun = new ArrayDeque<>();
+    private final ArrayDeque<Spilled> middle = new ArrayDeque<>();
+    private final ArrayDeque<Segment> tailRun = new ArrayDeque<>();
+    private long size;
+    private long spills;
+
+    // construct an empty deque keeping about heapBudget items in memory,
+    // spilling to a new temporary directory
+    public SpillingDeque(Codec<Item> codec, long heapBudget) throws IOException {
+        this(codec, heapBudget, null, true);
+    }
+
+    // construct an empty deque keeping about heapBudget items in memory,
+    // spilling to files in the given directory
+    public SpillingDeque(Codec<Item> codec, long heapBudget, Path directory) throws IOException {
+        this(codec, heapBudget, directory, false);
+    }
+
+    // a null directory, when the deque owns it, means a new temporary directory
+    private SpillingDeque(Codec<Item> codec, long heapBudget, Path directory, boolean ownsDirectory)
+            throws IOException {
+        if (codec == null) {
+            throw new IllegalArgumentException("codec should not be null");
+        }
+        if (heapBudget <= 0) {
+            throw new IllegalArgumentException("heap budget should be positive");
+        }
+        if (directory == null && !ownsDirectory) {
+            throw new IllegalArgumentException("directory should not be null");
+        }
+        this.codec = codec;
+        // one segment for each end at the very least
+        this.maxSegments = (int) Math.max(2, Math.min(Integer.MAX_VALUE, heapBudget / SEGMENT_SIZE));
+        this.directory = ownsDirectory
+                ? Files.createTempDirectory("deque-spill")
+                : Files.createDirectories(directory);
+        this.ownsDirectory = ownsDirectory;
+    }
+
+    // is the deque empty?
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // return the number of items on the deque
+    public long size() {
+        return size;
+    }
+
+    // return the number of items currently spilled to disk
+    public long spilledSize() {
+        long spilled = 0;
+        for (Spilled segment : middle) {
+            spilled += segment.count;
+        }
+        return spilled;
+    }
+
+    // return how many segments have been written to disk so far
+    public long spills() {
+        return spills;
+    }
+
+    // add the item to the front
+    public void addFirst(Item item) {
+        if (item == null) {
+            throw new IllegalArgumentException("item should not be null");
+        }
+
+        Segment first = headRun.isEmpty() && middle.isEmpty() ? tailRun.peekFirst() : headRun.peekFirst();
+        if (first == null || first.start == 0) {
+            first = new Segment(new Object[SEGMENT_SIZE], SEGMENT_SIZE, SEGMENT_SIZE);
+            headRun.addFirst(first);
+            enforceBudget();
+        }
+        first.items[--first.start] = item;
+        size++;
+    }
+
+    // add the item to the back
+    public void addLast(Item item) {
+        if (item == null) {
+            throw new IllegalArgumentException("item should not be null");
+        }
+
+        Segment last = tailRun.isEmpty() && middle.isEmpty() ? headRun.peekLast() : tailRun.peekLast();
+        if (last == null || last.end == SEGMENT_SIZE) {
+            last = new Segment(new Object[SEGMENT_SIZE], 0, 0);
+            tailRun.addLast(last);
+            enforceBudget();
+        }
+        last.items[last.end++] = item;
+        size++;
+    }
+
+    // remove and return the item from the front
+    public Item removeFirst() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("deque is empty");
+        }
+
+        if (headRun.isEmpty() && !middle.isEmpty()) {
+            headRun.addFirst(pageIn(middle.removeFirst()));
+        }
+        ArrayDeque<Segment> run = headRun.isEmpty() ? tailRun : headRun;
+        Segment first = run.peekFirst();
+        @SuppressWarnings("unchecked")
+        Item item = (Item) first.items[first.start];
+        first.items[first.start++] = null;
+        if (first.count() == 0) {
+            run.removeFirst();
+        }
+        size--;
+        return item;
+    }
+
+    // remove and return the item from the back
+    public Item removeLast() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("deque is empty");
+        }
+
+        if (tailRun.isEmpty() && !middle.isEmpty()) {
+            tailRun.addLast(pageIn(middle.removeLast()));
+        }
+        ArrayDeque<Segment> run = tailRun.isEmpty() ? headRun : tailRun;
+        Segment last = run.peekLast();
+        @SuppressWarnings("unchecked")
+        Item item = (Item) last.items[--last.end];
+        last.items[last.end] = null;
+        if (last.count() == 0) {
+            run.removeLast();
+        }
+        size--;
+        return item;
+    }
+
+    // spill segments nearest the middle until the in-memory ones fit the budget,
+    // never touching the first or last segment
+    private void enforceBudget() {
+        while (headRun.size() + tailRun.size() > maxSegments) {
+            // with nothing spilled, either run may hold every segment; split them so the
+            // innermost segment of each run is an interior one. Once segments are spilled,
+            // moving a segment across would put it on the wrong side of the middle
+            if (middle.isEmpty()) {
+                if (headRun.isEmpty()) {
+                    headRun.addLast(tailRun.removeFirst());
+                } else if (tailRun.isEmpty()) {
+                    tailRun.addFirst(headRun.removeLast());
+                }
+            }
+
+            if (headRun.size() >= tailRun.size() && headRun.size() > 1) {
+                middle.addFirst(spill(headRun.removeLast()));
+            } else if (tailRun.size() > 1) {
+                middle.addLast(spill(tailRun.removeFirst()));
+            } else {
+                return;
+            }
+        }
+    }
+
+    // write a segment's items to a new file as length-prefixed records
+    private Spilled spill(Segment segment) {
+        byte[][] encoded = new byte[segment.count()][];
+        long bytes = 0;
+        for (int i = 0; i < encoded.length; i++) {
+            @SuppressWarnings("unchecked")
+            Item item = (Item) segment.items[segment.start + i];
+            encoded[i] = codec.encode(item);
+            bytes += Integer.BYTES + encoded[i].length;
+        }
+
+        try {
+            Path file = Files.createTempFile(directory, "segment", ".bin");
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                if (bytes <= Integer.MAX_VALUE) {
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+                    for (byte[] record : encoded) {
+                        buffer.putInt(record.length);
+                        buffer.put(record);
+                    }
+                } else {
+                    // too large for one mapping: write the records through the channel
+                    ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+                    for (byte[] record : encoded) {
+                        length.clear();
+                        length.putInt(record.length).flip();
+                        writeFully(channel, length);
+                        writeFully(channel, ByteBuffer.wrap(record));
+                    }
+                }
+            }
+            spills++;
+            return new Spilled(file, encoded.length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("spill file is truncated");
+            }
+        }
+    }
+
+    // decode a spilled segment's items into a new array, keeping the file
+    private Object[] read(Spilled spilled) {
+        Object[] items = new Object[SEGMENT_SIZE];
+        try (FileChannel channel = FileChannel.open(spilled.file, StandardOpenOption.READ)) {
+            if (channel.size() <= Integer.MAX_VALUE) {
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                for (int i = 0; i < spilled.count; i++) {
+                    byte[] record = new byte[buffer.getInt()];
+                    buffer.get(record);
+                    items[i] = codec.decode(record);
+                }
+            } else {
+                ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+                for (int i = 0; i < spilled.count; i++) {
+                    length.clear();
+                    readFully(channel, length);
+                    byte[] record = new byte[length.flip().getInt()];
+                    readFully(channel, ByteBuffer.wrap(record));
+                    items[i] = codec.decode(record);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return items;
+    }
+
+    // bring a spilled segment back into memory and delete its file
+    private Segment pageIn(Spilled spilled) {
+        Segment segment = new Segment(read(spilled), 0, spilled.count);
+        try {
+            Files.delete(spilled.file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return segment;
+    }
+
+    // delete every spilled segment, and the directory if the deque created it;
+    // the deque must not be used afterwards
+    public void close() throws IOException {
+        for (Spilled spilled : middle) {
+            Files.deleteIfExists(spilled.file);
+        }
+        middle.clear();
+        headRun.clear();
+        tailRun.clear();
+        size = 0;
+        if (ownsDirectory) {
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    // an iterator over items in order from front to back; spilled segments are read from
+    // disk one at a time as the iterator reaches them
+    private class SpillingDequeIterator implements Iterator<Item> {
+        private final Iterator<Segment> head = headRun.iterator();
+        private final Iterator<Spilled> spilled = middle.iterator();
+        private final Iterator<Segment> tail = tailRun.iterator();
+        private Object[] items;
+        private int index;
+        private int end;
+
+        public boolean hasNext() {
+            while (index == end) {
+                if (head.hasNext()) {
+                    load(head.next());
+                } else if (spilled.hasNext()) {
+                    Spilled next = spilled.next();
+                    items = read(next);
+                    index = 0;
+                    end = next.count;
+                } else if (tail.hasNext()) {
+                    load(tail.next());
+                } else {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void load(Segment segment) {
+            items = segment.items;
+            index = segment.start;
+            end = segment.end;
+        }
+
+        @SuppressWarnings("unchecked")
+        public Item next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("deque has no next item");
+            }
+            return (Item) items[index++];
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("not support remove() operation");
+        }
+    }
+
+    // return an iterator over items in order from front to back
+    public Iterator<Item> iterator() {
+        return new SpillingDequeIterator();
+    }
+
+    // unit testing: an ingest burst far over the budget, then draining from the front
+    public static void main(String[] args) throws IOException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        long budget = args.length > 1 ? Long.parseLong(args[1]) : 50_000;
+
+        try (SpillingDeque<String> deque = new SpillingDeque<>(UTF8, budget)) {
+            long start = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                deque.addLast("record-" + i);
+            }
+            System.out.printf("added %d in %.1f ms, %d spilled in %d segments%n",
+                    deque.size(), (System.nanoTime() - start) / 1e6, deque.spilledSize(), deque.spills());
+
+            start = System.nanoTime();
+            boolean inOrder = true;
+            for (int i = 0; i < n; i++) {
+                inOrder &= deque.removeFirst().equals("record-" + i);
+            }
+            System.out.printf("drained in %.1f ms, in order = %b, empty = %b%n",
+                    (System.nanoTime() - start) / 1e6, inOrder, deque.isEmpty());
+        }
+
+        // empty the tail run while segments are spilled, then grow the other end
+        try (SpillingDeque<String> deque = new SpillingDeque<>(UTF8, 1)) {
+            int segments = 5;
+            for (int i = 0; i < segments * SEGMENT_SIZE; i++) {
+                deque.addLast("x" + i);
+            }
+            while (deque.size() > 3 * SEGMENT_SIZE) {
+                deque.removeLast();
+            }
+            for (int i = 1; i <= 3 * SEGMENT_SIZE; i++) {
+                deque.addFirst("y" + i);
+            }
+
+            boolean inOrder = true;
+            for (int i = 3 * SEGMENT_SIZE; i >= 1; i--) {
+                inOrder &= deque.removeFirst().equals("y" + i);
+            }
+            for (int i = 0; i < 3 * SEGMENT_SIZE; i++) {
+                inOrder &= deque.removeFirst().equals("x" + i);
+            }
+            System.out.printf("drain one end, grow the other: in order = %b, empty = %b%n",
+                    inOrder, deque.isEmpty());
+        }
+    }
+}
@@ -0,0 +1,282 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+// a randomized queue whose dequeue and sample pick each item with probability proportional
+// to its weight. Items sit in an array as in RandomizedQueue, removed by swapping in the last
+// one, and a Fenwick tree over the array's weights turns a uniform draw in [0, total) into
+// an index in O(log n). Items must be distinct, so that a weight can be found by its item.
+public class WeightedRandomizedQueue<Item> {
+
+    private static final String DEFAULT_ALGORITHM = "L64X128MixRandom";
+    // how far the total may fall below its peak since the last rebuild before the
+    // rounding left behind by removed weights could matter
+    private static final double DRIFT_RATIO = 1e-6;
+
+    private Item[] s;
+    private double[] weights;
+    // tree[i] holds the sum of weights[i - (i & -i) .. i - 1], 1-based, over the whole capacity
+    private double[] tree;
+    // the largest total since the tree was last rebuilt
+    private double peak;
+    // the largest size since the tree was last exact; no node past its update path holds drift
+    private int used;
+    private int size;
+    private final Map<Item, Integer> index = new HashMap<>();
+    private final RandomGenerator random;
+
+    // construct an empty weighted randomized queue
+    public WeightedRandomizedQueue() {
+        this(RandomGeneratorFactory.of(DEFAULT_ALGORITHM).create());
+    }
+
+    // construct an empty weighted randomized queue whose random choices are fixed by the seed
+    public WeightedRandomizedQueue(long seed) {
+        this(RandomGeneratorFactory.of(DEFAULT_ALGORITHM).create(seed));
+    }
+
+    // construct an empty weighted randomized queue drawing from the given generator
+    public WeightedRandomizedQueue(RandomGenerator random) {
+        if (random == null) {
+            throw new IllegalArgumentException("random should not be null");
+        }
+        s = (Item[]) new Object[2];
+        weights = new double[2];
+        tree = new double[3];
+        this.random = random;
+    }
+
+    // help make sure a weight can be drawn against, and that the total stays finite
+    // when it replaces the weight old
+    private void validateWeight(double weight, double old) {
+        if (!(weight > 0) || Double.isInfinite(weight)) {
+            throw new IllegalArgumentException("weight should be positive and finite");
+        }
+        if (Double.isInfinite(totalWeight() - old + weight)) {
+            throw new IllegalArgumentException("total weight would overflow");
+        }
+    }
+
+    // adding a delta to a far larger sum loses the delta's low bits, which cancel badly once
+    // the large weights are gone: when the total has fallen far below its peak, or is no
+    // longer positive, recompute the tree exactly from the weights
+    private void settle() {
+        double total = totalWeight();
+        if (size > 0 && (total <= 0 || total < peak * DRIFT_RATIO)) {
+            rebuild();
+        } else {
+            peak = Math.max(peak, total);
+        }
+    }
+
+    // start the next fill from exact zeros: only the nodes over positions below used can
+    // hold drift, so clearing costs no more than the enqueues that raised used
+    private void clear() {
+        Arrays.fill(tree, 1, Math.min(used + 1, tree.length), 0);
+        for (int j = used; j > 0 && j < tree.length; j += j & -j) {
+            tree[j] = 0;
+        }
+        peak = 0;
+        used = 0;
+    }
+
+    // draw a position with probability proportional to its weight; settle() keeps the
+    // total of a non-empty queue positive
+    private int draw() {
+        return search(random.nextDouble(totalWeight()));
+    }
+
+    // resize when the capacity is not enough to store one more item,
+    // rebuilding the tree in linear time, which also clears any rounding drift
+    private void resize(int capacity) {
+        Item[] copy = (Item[]) new Object[capacity];
+        System.arraycopy(s, 0, copy, 0, size);
+        s = copy;
+        double[] weightsCopy = new double[capacity];
+        System.arraycopy(weights, 0, weightsCopy, 0, size);
+        weights = weightsCopy;
+        rebuild();
+    }
+
+    // recompute every tree node from the weights
+    private void rebuild() {
+        tree = new double[weights.length + 1];
+        for (int i = 1; i < tree.length; i++) {
+            tree[i] += weights[i - 1];
+            int parent = i + (i & -i);
+            if (parent < tree.length) {
+                tree[parent] += tree[i];
+            }
+        }
+        peak = totalWeight();
+        used = size;
+    }
+
+    // add delta to the weight at position i in the tree
+    private void add(int i, double delta) {
+        for (int j = i + 1; j < tree.length; j += j & -j) {
+            tree[j] += delta;
+        }
+    }
+
+    // return the position whose weight interval contains r, for 0 <= r < totalWeight()
+    private int search(double r) {
+        int position = 0;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next < tree.length && tree[next] <= r) {
+                position = next;
+                r -= tree[next];
+            }
+        }
+        // rounding can carry a draw just past the last item
+        return Math.min(position, size - 1);
+    }
+
+    // is the queue empty?
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // return the number of items on the queue
+    public int size() {
+        return size;
+    }
+
+    // return the sum of the weights of all items
+    public double totalWeight() {
+        double total = 0;
+        for (int j = tree.length - 1; j > 0; j -= j & -j) {
+            total += tree[j];
+        }
+        return total;
+    }
+
+    // return the weight of the item
+    public double weight(Item item) {
+        return weights[positionOf(item)];
+    }
+
+    // help find an item that must be on the queue
+    private int positionOf(Item item) {
+        if (item == null) {
+            throw new IllegalArgumentException("item should not be null");
+        }
+        Integer position = index.get(item);
+        if (position == null) {
+            throw new NoSuchElementException("item is not on the queue");
+        }
+        return position;
+    }
+
+    // add the item with the given weight
+    public void enqueue(Item item, double weight) {
+        if (item == null) {
+            throw new IllegalArgumentException("item should not be null");
+        }
+        validateWeight(weight, 0);
+        if (index.containsKey(item)) {
+            throw new IllegalArgumentException("item is already on the queue");
+        }
+        if (size == s.length) {
+            resize(s.length * 2);
+        }
+        s[size] = item;
+        weights[size] = weight;
+        add(size, weight);
+        index.put(item, size);
+        size++;
+        used = Math.max(used, size);
+        settle();
+    }
+
+    // change the weight of an item on the queue
+    public void setWeight(Item item, double weight) {
+        int position = positionOf(item);
+        validateWeight(weight, weights[position]);
+        add(position, weight - weights[position]);
+        weights[position] = weight;
+        settle();
+    }
+
+    // remove and return an item chosen with probability proportional to its weight
+    public Item dequeue() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("the queue is empty");
+        }
+        int position = draw();
+        Item itemToRemove = s[position];
+
+        // move the last item into the hole, and its weight with it
+        int last = size - 1;
+        add(position, weights[last] - weights[position]);
+        add(last, -weights[last]);
+        s[position] = s[last];
+        weights[position] = weights[last];
+        s[last] = null;
+        weights[last] = 0;
+        index.remove(itemToRemove);
+        if (position != last) {
+            index.put(s[position], position);
+        }
+        size--;
+
+        if (size == 0) {
+            clear();
+        } else {
+            settle();
+        }
+        return itemToRemove;
+    }
+
+    // return an item chosen with probability proportional to its weight (but do not remove it)
+    public Item sample() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("the queue is empty");
+        }
+        return s[draw()];
+    }
+
+    // unit testing: sampled frequencies should follow the weights
+    public static void main(String[] args) {
+        WeightedRandomizedQueue<String> queue = new WeightedRandomizedQueue<>(42);
+        queue.enqueue("a", 1);
+        queue.enqueue("b", 2);
+        queue.enqueue("c", 3);
+        queue.enqueue("d", 4);
+        System.out.println(queue.size() + " items, total weight " + queue.totalWeight());
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            counts.merge(queue.sample(), 1, Integer::sum);
+        }
+        System.out.println("samples with weights 1:2:3:4  " + counts);
+
+        queue.setWeight("a", 6);
+        counts.clear();
+        for (int i = 0; i < 100_000; i++) {
+            counts.merge(queue.sample(), 1, Integer::sum);
+        }
+        System.out.println("samples with weights 6:2:3:4  " + counts);
+
+        while (!queue.isEmpty()) {
+            System.out.print(queue.dequeue() + " ");
+        }
+        System.out.println();
+        System.out.println(queue.isEmpty() + " " + queue.totalWeight());
+
+        // weights far apart: removing the big one must not leave the total at zero or below
+        WeightedRandomizedQueue<String> skewed = new WeightedRandomizedQueue<>(7);
+        skewed.enqueue("big", 1e20);
+        skewed.enqueue("small", 1e-5);
+        System.out.println(skewed.dequeue() + " then " + skewed.dequeue());
+        skewed.enqueue("big", 1e20);
+        skewed.enqueue("small", 1e-5);
+        skewed.setWeight("big", 1e-5);
+        System.out.println("total after shrinking big: " + skewed.totalWeight());
+        System.out.println(skewed.dequeue() + " and " + skewed.dequeue());
+    }
+}
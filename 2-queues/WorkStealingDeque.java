@@ -0,0 +1,218 @@
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// a Chase-Lev work-stealing deque: one owner thread adds and removes at the back,
+// any number of thief threads remove from the front
+public class WorkStealingDeque<Item> {
+
+    // a circular array over unbounded indices, with a power-of-two capacity
+    private static final class Ring {
+        private final AtomicReferenceArray<Object> items;
+        private final int mask;
+
+        Ring(int capacity) {
+            items = new AtomicReferenceArray<>(capacity);
+            mask = capacity - 1;
+        }
+
+        Object get(long i) {
+            return items.get((int) i & mask);
+        }
+
+        void put(long i, Object item) {
+            items.set((int) i & mask, item);
+        }
+
+        // a ring of twice the capacity holding the same items at the same indices
+        Ring grow(long top, long bottom) {
+            Ring copy = new Ring(2 * (mask + 1));
+            for (long i = top; i < bottom; i++) {
+                copy.put(i, get(i));
+            }
+            return copy;
+        }
+    }
+
+    // top is the index of the front item, bottom the index just past the back item;
+    // only the owner writes bottom and ring, and top only ever moves forward by CAS.
+    // Whoever takes an item clears its slot, so finished items are not kept reachable;
+    // a thief clears after its CAS, so the owner never overwrites a slot still holding an item
+    private final AtomicLong top = new AtomicLong();
+    private volatile long bottom;
+    private volatile Ring ring;
+
+    // construct an empty deque
+    public WorkStealingDeque() {
+        ring = new Ring(16);
+    }
+
+    // is the deque empty? only a snapshot while other threads are active
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // return the number of items on the deque; only a snapshot while other threads are active
+    public int size() {
+        long b = bottom;
+        long t = top.get();
+        return (int) Math.max(0, b - t);
+    }
+
+    // add the item to the back; owner thread only
+    public void addLast(Item item) {
+        if (item == null) {
+            throw new IllegalArgumentException("item should not be null");
+        }
+
+        long b = bottom;
+        long t = top.get();
+        Ring r = ring;
+        // an occupied slot past the items is one a thief has taken but not cleared yet
+        if (b - t > r.mask || r.get(b) != null) {
+            r = r.grow(t, b);
+            ring = r;
+        }
+        r.put(b, item);
+        bottom = b + 1;
+    }
+
+    // remove and return the item from the back, or null if the deque is empty; owner thread only
+    @SuppressWarnings("unchecked")
+    public Item pollLast() {
+        long b = bottom - 1;
+        Ring r = ring;
+        bottom = b;
+        long t = top.get();
+        if (t > b) {
+            // empty: undo the reservation
+            bottom = b + 1;
+            return null;
+        }
+
+        Item item = (Item) r.get(b);
+        if (t == b) {
+            // the last item: race any thief for it through top; a winning thief clears the slot
+            if (top.compareAndSet(t, t + 1)) {
+                r.put(b, null);
+            } else {
+                item = null;
+            }
+            bottom = b + 1;
+        } else {
+            r.put(b, null);
+        }
+        return item;
+    }
+
+    // remove and return the item from the back; owner thread only
+    public Item removeLast() {
+        Item item = pollLast();
+        if (item == null) {
+            throw new NoSuchElementException("deque is empty");
+        }
+        return item;
+    }
+
+    // remove and return the item from the front, or null if the deque is empty;
+    // safe from any thread, retrying when another thread takes the same item first
+    @SuppressWarnings("unchecked")
+    public Item pollFirst() {
+        while (true) {
+            long t = top.get();
+            long b = bottom;
+            if (t >= b) {
+                return null;
+            }
+
+            Ring r = ring;
+            Item item = (Item) r.get(t);
+            if (item != null && top.compareAndSet(t, t + 1)) {
+                // the slot cannot be reused until it is cleared; if the owner has grown the
+                // ring since, the new ring's copy stays until the owner reaches that slot
+                r.put(t, null);
+                return item;
+            }
+        }
+    }
+
+    // remove and return the item from the front; safe from any thread
+    public Item removeFirst() {
+        Item item = pollFirst();
+        if (item == null) {
+            throw new NoSuchElementException("deque is empty");
+        }
+        return item;
+    }
+
+    // stress test: the owner adds and removes while thieves steal, and every item
+    // must come out exactly once
+    public static void main(String[] args) throws InterruptedException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int thieves = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        WorkStealingDeque<Integer> deque = new WorkStealingDeque<>();
+        AtomicIntegerArray taken = new AtomicIntegerArray(n);
+        AtomicLong total = new AtomicLong();
+        Thread[] workers = new Thread[thieves];
+        for (int w = 0; w < thieves; w++) {
+            workers[w] = new Thread(() -> {
+                while (total.get() < n) {
+                    Integer item = deque.pollFirst();
+                    if (item != null) {
+                        taken.incrementAndGet(item);
+                        total.incrementAndGet();
+                    }
+                }
+            });
+            workers[w].start();
+        }
+
+        // the owner pushes everything, popping one item back after every third push
+        for (int i = 0; i < n; i++) {
+            deque.addLast(i);
+            if (i % 3 == 2) {
+                Integer item = deque.pollLast();
+                if (item != null) {
+                    taken.incrementAndGet(item);
+                    total.incrementAndGet();
+                }
+            }
+        }
+        Integer item;
+        while ((item = deque.pollLast()) != null) {
+            taken.incrementAndGet(item);
+            total.incrementAndGet();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        int lost = 0;
+        int duplicated = 0;
+        for (int i = 0; i < n; i++) {
+            if (taken.get(i) == 0) {
+                lost++;
+            } else if (taken.get(i) > 1) {
+                duplicated++;
+            }
+        }
+        System.out.println("items      = " + n);
+        System.out.println("taken      = " + total.get());
+        System.out.println("lost       = " + lost);
+        System.out.println("duplicated = " + duplicated);
+        System.out.println("empty      = " + deque.isEmpty());
+
+        // items still referenced by the ring after draining; only a copy made by a grow
+        // racing a steal can remain
+        int retained = 0;
+        Ring r = deque.ring;
+        for (int i = 0; i <= r.mask; i++) {
+            if (r.get(i) != null) {
+                retained++;
+            }
+        }
+        System.out.println("retained   = " + retained);
+    }
+}
@@ -0,0 +1,107 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+public class WorkStealingDequeBenchmark {
+    // the three deque operations of a work-stealing scheduler
+    private interface TaskQueue {
+        void push(Integer task);
+
+        Integer pop();
+
+        Integer steal();
+    }
+
+    // the single-threaded Deque behind one lock
+    private static class LockedDeque implements TaskQueue {
+        private final Deque<Integer> deque = new Deque<>();
+
+        public synchronized void push(Integer task) {
+            deque.addLast(task);
+        }
+
+        public synchronized Integer pop() {
+            return deque.isEmpty() ? null : deque.removeLast();
+        }
+
+        public synchronized Integer steal() {
+            return deque.isEmpty() ? null : deque.removeFirst();
+        }
+    }
+
+    // the Chase-Lev deque
+    private static class StealingDeque implements TaskQueue {
+        private final WorkStealingDeque<Integer> deque = new WorkStealingDeque<>();
+
+        public void push(Integer task) {
+            deque.addLast(task);
+        }
+
+        public Integer pop() {
+            return deque.pollLast();
+        }
+
+        public Integer steal() {
+            return deque.pollFirst();
+        }
+    }
+
+    // the owner pushes every task, popping one back after every push of a pair, while the
+    // thieves steal until every task is done; returns elapsed nanoseconds
+    private static long run(TaskQueue queue, Integer[] tasks, int thieves) throws InterruptedException {
+        AtomicLong done = new AtomicLong();
+        Thread[] workers = new Thread[thieves];
+        for (int w = 0; w < thieves; w++) {
+            workers[w] = new Thread(() -> {
+                while (done.get() < tasks.length) {
+                    if (queue.steal() != null) {
+                        done.incrementAndGet();
+                    }
+                }
+            });
+        }
+
+        long start = System.nanoTime();
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (int i = 0; i < tasks.length; i++) {
+            queue.push(tasks[i]);
+            if ((i & 1) == 1 && queue.pop() != null) {
+                done.incrementAndGet();
+            }
+        }
+        while (queue.pop() != null) {
+            done.incrementAndGet();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return System.nanoTime() - start;
+    }
+
+    // usage: [tasks] [maxThieves] [rounds]
+    public static void main(String[] args) throws InterruptedException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int maxThieves = args.length > 1
+                ? Integer.parseInt(args[1])
+                : Runtime.getRuntime().availableProcessors() - 1;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        // box the tasks up front so allocation is not part of the measurement
+        Integer[] tasks = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            tasks[i] = i;
+        }
+
+        System.out.println("thieves  locked(ms)  work-stealing(ms)  speedup");
+        for (int thieves = 0; thieves <= Math.max(0, maxThieves); thieves = Math.max(1, thieves * 2)) {
+            long locked = Long.MAX_VALUE;
+            long stealing = Long.MAX_VALUE;
+            for (int r = 0; r < rounds; r++) {
+                locked = Math.min(locked, run(new LockedDeque(), tasks, thieves));
+                stealing = Math.min(stealing, run(new StealingDeque(), tasks, thieves));
+            }
+            System.out.printf("%7d  %10.1f  %17.1f  %7.2f%n",
+                    thieves, locked / 1e6, stealing / 1e6, (double) locked / stealing);
+        }
+    }
+}
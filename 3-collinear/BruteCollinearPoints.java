@@ -29,7 +29,7 @@ public class BruteCollinearPoints {
                         Point r = copy[k];
                         Point s = copy[l];
 
-                        if (p.slopeTo(q) == p.slopeTo(r) && p.slopeTo(r) == p.slopeTo(s)) {
+                        if (p.slopeKey(q) == p.slopeKey(r) && p.slopeKey(r) == p.slopeKey(s)) {
                             segments.add(new LineSegment(p, s));
                         }
                     }
@@ -5,50 +5,91 @@ import java.util.List;
 public class FastCollinearPoints {
     private final List<LineSegment> segments = new ArrayList<>();
 
+    // groups the other points by their exact slope key to one origin, in an open-addressing
+    // table reused across origins: a slot belongs to the current origin only if its stamp is
+    // the current generation, so moving to the next origin clears nothing
+    private static final class SlopeGroups {
+        private final long[] keys;
+        private final int[] stamps;
+        private final int[] groupOf;
+        private final int mask;
+        private int generation;
+
+        // per group of the current origin: how many points, the last (largest) point's
+        // index, and whether any point comes before the origin
+        private final int[] count;
+        private final int[] last;
+        private final boolean[] hasSmaller;
+        private int groups;
+
+        SlopeGroups(int n) {
+            int capacity = Integer.highestOneBit(Math.max(2, 2 * n - 1)) << 1;
+            keys = new long[capacity];
+            stamps = new int[capacity];
+            groupOf = new int[capacity];
+            mask = capacity - 1;
+            count = new int[n];
+            last = new int[n];
+            hasSmaller = new boolean[n];
+        }
+
+        void reset() {
+            generation++;
+            groups = 0;
+        }
+
+        // add the point at index j, whose slope key to the origin at index i is key
+        void add(long key, int j, int i) {
+            int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+            while (stamps[slot] == generation && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            int g;
+            if (stamps[slot] != generation) {
+                stamps[slot] = generation;
+                keys[slot] = key;
+                g = groups++;
+                groupOf[slot] = g;
+                count[g] = 0;
+                hasSmaller[g] = false;
+            } else {
+                g = groupOf[slot];
+            }
+            count[g]++;
+            last[g] = j;
+            hasSmaller[g] |= j < i;
+        }
+    }
+
     // finds all line segments containing 4 or more points
     public FastCollinearPoints(Point[] points) {
         if (points == null) throw new IllegalArgumentException("Argument cannot be null");
         for (Point point : points) {
             if (point == null) throw new IllegalArgumentException("Point cannot be null");
         }
-        for (int i = 0; i < points.length - 1; i++) {
-            for (int j = i + 1; j < points.length; j++) {
-                if (points[i].equals(points[j])) throw new IllegalArgumentException("Argument should not contain same points");
-            }
-        }
 
-        Point [] copy = points.clone();
+        // in natural order, a segment's endpoints are its points with the lowest and
+        // highest index, so each segment is found once: from its lowest point
+        Point[] copy = points.clone();
         Arrays.sort(copy);
-        Arrays.sort(copy, copy[0].slopeOrder());
-
         for (int i = 0; i < copy.length - 1; i++) {
+            if (copy[i].compareTo(copy[i + 1]) == 0) throw new IllegalArgumentException("Argument should not contain same points");
+        }
+
+        SlopeGroups groups = new SlopeGroups(copy.length);
+        for (int i = 0; i < copy.length; i++) {
             Point origin = copy[i];
-            List<Point> collinearPoints = new ArrayList<>();
-            collinearPoints.add(origin);
-            collinearPoints.add(copy[i + 1]);
-            double previousSlope = origin.slopeTo(copy[i + 1]);
-            for (int j = i + 2; j < copy.length; j++) {
-                double currentSlope = origin.slopeTo(copy[j]);
-                if (currentSlope == previousSlope) {
-                    collinearPoints.add(copy[j]);
-                } else {
-                    if (collinearPoints.size() >= 4) {
-                        addSegment(collinearPoints);
-                    }
-                    collinearPoints.clear();
-                    collinearPoints.add(origin);
-                    collinearPoints.add(copy[j]);
-                    previousSlope = currentSlope;
+            groups.reset();
+            for (int j = 0; j < copy.length; j++) {
+                if (j != i) {
+                    groups.add(origin.slopeKey(copy[j]), j, i);
+                }
+            }
+            for (int g = 0; g < groups.groups; g++) {
+                if (groups.count[g] >= 3 && !groups.hasSmaller[g]) {
+                    segments.add(new LineSegment(origin, copy[groups.last[g]]));
                 }
             }
-        }
-    }
-
-    private void addSegment(List<Point> collinearPoints) {
-        if (collinearPoints.size() >= 4) {
-            Point[] collinearArray = collinearPoints.toArray(new Point[0]);
-            Arrays.sort(collinearArray);
-            segments.add(new LineSegment(collinearArray[0], collinearArray[collinearArray.length - 1]));
         }
     }
 
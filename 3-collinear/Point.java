@@ -17,6 +17,11 @@ public class Point implements Comparable<Point> {
     private final int x;     // x-coordinate of this point
     private final int y;     // y-coordinate of this point
 
+    /**
+     * The slope key of a point to itself; no pair of distinct points has it.
+     */
+    public static final long DEGENERATE_SLOPE = Long.MIN_VALUE;
+
     /**
      * Initializes a new point.
      *
@@ -74,6 +79,54 @@ public class Point implements Comparable<Point> {
         }
     }
 
+    /**
+     * Returns an exact key for the slope between this point and the specified
+     * point: two pairs of points have the same key if and only if their slopes
+     * are equal. The slope dy/dx is reduced to lowest terms with dx &gt;= 0, and
+     * packed as dy in the high 32 bits and dx in the low 32 bits; a vertical
+     * segment is 1/0, a horizontal one 0/1, and equal points get the key
+     * {@link #DEGENERATE_SLOPE}.
+     *
+     * @param  that the other point
+     * @return the exact slope key between this point and the specified point
+     * @throws IllegalArgumentException if the reduced slope does not fit in
+     *         two ints, which needs coordinates more than 2^31 apart
+     */
+    public long slopeKey(Point that) {
+        long dy = (long) that.y - this.y;
+        long dx = (long) that.x - this.x;
+        if (dx == 0 && dy == 0) {
+            return DEGENERATE_SLOPE;
+        }
+        if (dx == 0) {
+            dy = 1;
+        } else if (dy == 0) {
+            dx = 1;
+        } else {
+            long gcd = gcd(Math.abs(dy), Math.abs(dx));
+            dy /= gcd;
+            dx /= gcd;
+            if (dx < 0) {
+                dy = -dy;
+                dx = -dx;
+            }
+        }
+        if (dy != (int) dy || dx != (int) dx) {
+            throw new IllegalArgumentException("points too far apart for an exact slope key");
+        }
+        return (dy << 32) | dx;
+    }
+
+    // Euclid's algorithm on non-negative values
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long r = a % b;
+            a = b;
+            b = r;
+        }
+        return a;
+    }
+
     /**
      * Compares two points by y-coordinate, breaking ties by x-coordinate.
      * Formally, the invoking point (x0, y0) is less than the argument point
@@ -166,6 +219,13 @@ public class Point implements Comparable<Point> {
         assert slope3_2 == -1.0 : "Error in slopeTo()";
         assert slope1_0 == 2.0 : "Error in slopeTo()";
 
+        // Test slopeKey()
+        assert p1.slopeKey(p2) == 1L << 32 : "Error in slopeKey() with vertical line";
+        assert p1.slopeKey(p3) == 1 : "Error in slopeKey() with horizontal line";
+        assert p1.slopeKey(p4) == DEGENERATE_SLOPE : "Error in slopeKey() with same point";
+        assert p3.slopeKey(p2) == p2.slopeKey(p3) : "Error in slopeKey() symmetry";
+        assert p1.slopeKey(edgePoint1) == new Point(0, 0).slopeKey(new Point(2, 4)) : "Error in slopeKey()";
+
         // Test slopeOrder()
         Point[] points = {edgePoint1, p2, p3, p4, edgePoint2};
         Arrays.sort(points, p1.slopeOrder());